@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.url;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link URLCanonicalizer#getCanonicalURL(String, String)}, which takes the simple path
+ * for URLs which are almost canonical, with the full canonicalization of every URL, on the kind
+ * of links found in pages. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class URLCanonicalizerBenchmark {
+
+    private static final String CONTEXT = "https://www.example.com/articles/2019/crawling.html";
+
+    private static final String[] HREFS = {
+        "https://www.example.com/",
+        "https://www.example.com/about",
+        "https://www.example.com/articles/2019/",
+        "https://www.example.com/articles/2019/parsing.html",
+        "https://www.example.com/articles/2019/parsing.html#comments",
+        "https://cdn.example.net/static/css/main.css",
+        "https://cdn.example.net/static/js/app-1.2.3.min.js",
+        "https://www.example.org",
+        "/",
+        "/contact",
+        "/articles/2018/",
+        "/tags/java",
+        "/images/logo.png",
+        "/articles/2019/crawling.html#top",
+        "related.html",
+        "../2018/index.html",
+        "./page-2.html",
+        "?page=2",
+        "#section-1",
+        "https://www.example.com/search?q=web+crawler&lang=en",
+        "https://www.example.com/search?q=crawler4j&sort=date&order=desc",
+        "/share?url=https%3A%2F%2Fwww.example.com%2F&title=Crawling",
+        "https://WWW.Example.com/Mixed/Case",
+        "http://www.example.com:80/default-port",
+        "https://www.example.com/a//b/../c/./d.html",
+        "https://www.example.com/files/My Document.pdf",
+        "//cdn.example.net/protocol-relative.js",
+        "https://www.example.com/index.php?PHPSESSID=abc123&id=7",
+    };
+
+    @Benchmark
+    public void canonicalURL(Blackhole blackhole) throws UnsupportedEncodingException {
+        for (String href : HREFS) {
+            blackhole.consume(URLCanonicalizer.getCanonicalURL(href, CONTEXT));
+        }
+    }
+
+    @Benchmark
+    public void fullCanonicalization(Blackhole blackhole) throws UnsupportedEncodingException {
+        for (String href : HREFS) {
+            blackhole.consume(URLCanonicalizer.resolveAndCanonicalize(href, CONTEXT, StandardCharsets.UTF_8));
+        }
+    }
+}
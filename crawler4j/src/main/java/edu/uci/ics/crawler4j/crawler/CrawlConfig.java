@@ -235,6 +235,124 @@ public class CrawlConfig {
      */
     private int batchReadSize = 50;
 
+    /**
+     * Whether the frontier should keep a separate queue per host and only hand out URLs of
+     * hosts which may be fetched according to the politeness delay.
+     */
+    private boolean hostPartitionedFrontier = false;
+
+    /**
+     * Whether the docids of the seen URLs should be kept in an in memory hash table instead of
+     * looking them up in the docid database.
+     */
+    private boolean inMemoryDocIdServer = false;
+
+    /**
+     * Whether a bloom filter of the seen URLs should be checked before looking up a URL in the
+     * docid database.
+     */
+    private boolean docIdBloomFilter = false;
+
+    /**
+     * Number of URLs the docid bloom filter is initially sized for.
+     */
+    private long docIdBloomFilterInitialSize = 1000000;
+
+    /**
+     * Maximum probability that the docid bloom filter reports an unseen URL as seen.
+     */
+    private double docIdBloomFilterFalsePositiveRate = 0.01;
+
+    /**
+     * Whether crawlers should run on virtual threads instead of platform threads. Virtual
+     * threads are only available on Java 21 and later, on older versions platform threads are
+     * used.
+     */
+    private boolean useVirtualThreads = false;
+
+    /**
+     * Whether fetching, parsing, scheduling of outgoing links and visiting are done by separate
+     * groups of crawler threads connected by bounded queues, instead of all of them by each crawler.
+     */
+    private boolean pipelinedCrawling = false;
+
+    /**
+     * Number of crawlers parsing pages in pipelined crawling, and of threads parsing pages
+     * asynchronously, 0 for one per available processor
+     */
+    private int numberOfParserThreads = 0;
+
+    /**
+     * Number of crawlers scheduling the outgoing links of pages in pipelined crawling
+     */
+    private int numberOfLinkSchedulerThreads = 1;
+
+    /**
+     * Number of crawlers calling {@link WebCrawler#visit(Page)} in pipelined crawling
+     */
+    private int numberOfVisitorThreads = 1;
+
+    /**
+     * Maximum number of pages waiting for each stage in pipelined crawling
+     */
+    private int pipelineQueueSize = 100;
+
+    /**
+     * Maximum number of bytes kept for reuse when loading the content of pages, 0 to not reuse them
+     */
+    private int contentBufferPoolSize = 0;
+
+    /**
+     * Whether the text of HTML pages is only extracted when it is asked for
+     */
+    private boolean lazyHtmlParsing = false;
+
+    /**
+     * Whether HTML pages are parsed with the fast link extractor instead of Tika
+     */
+    private boolean fastHtmlParsing = false;
+
+    /**
+     * Maximum delay in milliseconds between two requests to a host which asks for a longer
+     * "Crawl-delay" in its robots.txt. Hosts asking for a delay shorter than the politeness
+     * delay are still fetched with the politeness delay.
+     */
+    private int maxCrawlDelay = 10000;
+
+    /**
+     * Should the delay between two requests to a host adapt to how it answers? The delay is
+     * shortened while the host answers quickly and lengthened when it is slow, throttles
+     * requests with 429 or 503 responses or fails to answer. The politeness delay is the
+     * starting delay of each host.
+     */
+    private boolean adaptivePoliteness = false;
+
+    /**
+     * Minimum delay in milliseconds between two requests to a host with adaptive politeness.
+     * The "Crawl-delay" of the robots.txt of a host still applies.
+     */
+    private int minPolitenessDelay = 0;
+
+    /**
+     * Maximum delay in milliseconds between two requests to a host with adaptive politeness,
+     * also capping how long a "Retry-After" header delays it.
+     */
+    private int maxPolitenessDelay = 60000;
+
+    /**
+     * Maximum number of times the fetch of a URL is retried after a transient failure: a
+     * timeout, a connection failure, a 429 or a 5xx status code. The URL waits in the frontier
+     * until it may be fetched again, without keeping a crawler thread busy. With 0, failed URLs
+     * are not retried.
+     */
+    private int maxRetries = 0;
+
+    /**
+     * Delay in milliseconds before the first retry of a failed fetch. It doubles with each
+     * following retry, and a longer "Retry-After" asked for by the server is used instead.
+     */
+    private int retryBaseDelay = 10000;
+
     /**
      * Validates the configs specified by this instance.
      *
@@ -247,6 +365,19 @@ public class CrawlConfig {
         if (politenessDelay < 0) {
             throw new Exception("Invalid value for politeness delay: " + politenessDelay);
         }
+        if (maxCrawlDelay < 0) {
+            throw new Exception("Invalid value for max crawl delay: " + maxCrawlDelay);
+        }
+        if ((maxRetries < 0) || (maxRetries > Short.MAX_VALUE)) {
+            throw new Exception("Invalid value for max retries: " + maxRetries);
+        }
+        if (retryBaseDelay < 0) {
+            throw new Exception("Invalid value for retry base delay: " + retryBaseDelay);
+        }
+        if ((minPolitenessDelay < 0) || (maxPolitenessDelay < minPolitenessDelay)) {
+            throw new Exception("Invalid values for min and max politeness delays: " + minPolitenessDelay +
+                                ", " + maxPolitenessDelay);
+        }
         if (maxDepthOfCrawling < -1) {
             throw new Exception(
                 "Maximum crawl depth should be either a positive number or -1 for unlimited depth" +
@@ -255,6 +386,24 @@ public class CrawlConfig {
         if (maxDepthOfCrawling > Short.MAX_VALUE) {
             throw new Exception("Maximum value for crawl depth is " + Short.MAX_VALUE);
         }
+        if ((docIdBloomFilterFalsePositiveRate <= 0) || (docIdBloomFilterFalsePositiveRate >= 1)) {
+            throw new Exception("Invalid value for docid bloom filter false positive rate: " +
+                                docIdBloomFilterFalsePositiveRate);
+        }
+        if (pipelinedCrawling) {
+            if (numberOfParserThreads < 0) {
+                throw new Exception("Invalid value for number of parser threads: " + numberOfParserThreads);
+            }
+            if (numberOfLinkSchedulerThreads < 1) {
+                throw new Exception("Number of link scheduler threads should be at least 1");
+            }
+            if (numberOfVisitorThreads < 1) {
+                throw new Exception("Number of visitor threads should be at least 1");
+            }
+            if (pipelineQueueSize < 1) {
+                throw new Exception("Pipeline queue size should be at least 1");
+            }
+        }
     }
 
     public String getCrawlStorageFolder() {
@@ -732,6 +881,271 @@ public class CrawlConfig {
         this.batchReadSize = batchReadSize;
     }
 
+    /**
+     * Should the frontier keep a separate queue for each host? If enabled, crawler threads
+     * are given URLs of different hosts whose politeness delay has passed, instead of the
+     * first URLs in priority order. This setting must not be changed when resuming a crawl.
+     *
+     * @return {@code true} if the host partitioned frontier is used
+     */
+    public boolean isHostPartitionedFrontier() {
+        return hostPartitionedFrontier;
+    }
+
+    public void setHostPartitionedFrontier(boolean hostPartitionedFrontier) {
+        this.hostPartitionedFrontier = hostPartitionedFrontier;
+    }
+
+    /**
+     * Should the docids of seen URLs be kept in memory? Lookups then do not need any lock,
+     * which helps when many crawler threads process pages with many links. The table needs
+     * about 16 bytes per URL. With resumable crawling the docids are still written to the
+     * database so they survive a restart.
+     *
+     * @return {@code true} if the in memory docid server is used
+     */
+    public boolean isInMemoryDocIdServer() {
+        return inMemoryDocIdServer;
+    }
+
+    public void setInMemoryDocIdServer(boolean inMemoryDocIdServer) {
+        this.inMemoryDocIdServer = inMemoryDocIdServer;
+    }
+
+    /**
+     * Should a bloom filter be kept in front of the docid database? URLs which have
+     * definitely not been seen before are then answered without reading the database. With
+     * resumable crawling the filter is saved next to the database when the crawl is closed.
+     *
+     * @return {@code true} if the docid bloom filter is used
+     */
+    public boolean isDocIdBloomFilter() {
+        return docIdBloomFilter;
+    }
+
+    public void setDocIdBloomFilter(boolean docIdBloomFilter) {
+        this.docIdBloomFilter = docIdBloomFilter;
+    }
+
+    /**
+     * Number of URLs the docid bloom filter is initially sized for. The filter grows when
+     * more URLs are seen, but is most compact when this is close to the final number of URLs.
+     *
+     * @return the initial size of the docid bloom filter
+     */
+    public long getDocIdBloomFilterInitialSize() {
+        return docIdBloomFilterInitialSize;
+    }
+
+    public void setDocIdBloomFilterInitialSize(long docIdBloomFilterInitialSize) {
+        this.docIdBloomFilterInitialSize = docIdBloomFilterInitialSize;
+    }
+
+    /**
+     * Maximum probability that the docid bloom filter reports an unseen URL as seen, in which
+     * case the docid database is read to make sure.
+     *
+     * @return the false positive rate of the docid bloom filter
+     */
+    public double getDocIdBloomFilterFalsePositiveRate() {
+        return docIdBloomFilterFalsePositiveRate;
+    }
+
+    public void setDocIdBloomFilterFalsePositiveRate(double docIdBloomFilterFalsePositiveRate) {
+        this.docIdBloomFilterFalsePositiveRate = docIdBloomFilterFalsePositiveRate;
+    }
+
+    /**
+     * Run each crawler on a virtual thread when the JVM supports them (Java 21+), which makes
+     * it cheap to run thousands of crawlers. Falls back to platform threads otherwise.
+     */
+    public boolean isUseVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    public void setUseVirtualThreads(boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    /**
+     * In pipelined crawling the number of crawlers given when starting the crawl is the number of
+     * crawlers which fetch pages. The pages are then parsed, their links scheduled and finally
+     * visited by the crawlers of the following stages, whose numbers are configured separately.
+     * Each stage can so be sized for the resource it uses, and a slow stage slows down the
+     * fetchers only once its queue is full.
+     */
+    public boolean isPipelinedCrawling() {
+        return pipelinedCrawling;
+    }
+
+    public void setPipelinedCrawling(boolean pipelinedCrawling) {
+        this.pipelinedCrawling = pipelinedCrawling;
+    }
+
+    /**
+     * Number of crawlers parsing pages in pipelined crawling, and of threads of the pool
+     * {@link edu.uci.ics.crawler4j.parser.Parser#parseAsync} parses pages in. If it is 0, there is
+     * one per available processor.
+     */
+    public int getNumberOfParserThreads() {
+        return numberOfParserThreads;
+    }
+
+    public void setNumberOfParserThreads(int numberOfParserThreads) {
+        this.numberOfParserThreads = numberOfParserThreads;
+    }
+
+    /**
+     * Number of crawlers scheduling the outgoing links of pages in pipelined crawling
+     */
+    public int getNumberOfLinkSchedulerThreads() {
+        return numberOfLinkSchedulerThreads;
+    }
+
+    public void setNumberOfLinkSchedulerThreads(int numberOfLinkSchedulerThreads) {
+        this.numberOfLinkSchedulerThreads = numberOfLinkSchedulerThreads;
+    }
+
+    /**
+     * Number of crawlers calling {@link WebCrawler#visit(Page)} in pipelined crawling
+     */
+    public int getNumberOfVisitorThreads() {
+        return numberOfVisitorThreads;
+    }
+
+    public void setNumberOfVisitorThreads(int numberOfVisitorThreads) {
+        this.numberOfVisitorThreads = numberOfVisitorThreads;
+    }
+
+    /**
+     * Maximum number of pages waiting for each stage in pipelined crawling. Crawlers of the
+     * previous stage wait when the queue is full.
+     */
+    public int getPipelineQueueSize() {
+        return pipelineQueueSize;
+    }
+
+    public void setPipelineQueueSize(int pipelineQueueSize) {
+        this.pipelineQueueSize = pipelineQueueSize;
+    }
+
+    /**
+     * Maximum number of bytes kept in a pool shared by all crawlers for loading the content of
+     * pages. Once a page is processed its buffers are returned to the pool, so loading pages does not
+     * allocate memory anymore. If it is 0, buffers are not reused.
+     *
+     * <p>When it is enabled, the content of a page must not be used after the crawler is done with
+     * it, for example by keeping the page after {@link WebCrawler#visit(Page)} returns, unless
+     * {@link Page#getContentData()} or {@link edu.uci.ics.crawler4j.parser.HtmlParseData#getHtml()}
+     * were called before.</p>
+     */
+    public int getContentBufferPoolSize() {
+        return contentBufferPoolSize;
+    }
+
+    public void setContentBufferPoolSize(int contentBufferPoolSize) {
+        this.contentBufferPoolSize = contentBufferPoolSize;
+    }
+
+    /**
+     * If it is enabled, parsing an HTML page only extracts its links, title and meta tags. The
+     * text is extracted by parsing the page again the first time
+     * {@link edu.uci.ics.crawler4j.parser.HtmlParseData#getText()} or {@link Page#getLanguage()} is
+     * called, which makes crawls which only follow links cheaper, but those using the text more
+     * expensive.
+     */
+    public boolean isLazyHtmlParsing() {
+        return lazyHtmlParsing;
+    }
+
+    public void setLazyHtmlParsing(boolean lazyHtmlParsing) {
+        this.lazyHtmlParsing = lazyHtmlParsing;
+    }
+
+    /**
+     * If it is enabled, HTML pages are parsed with {@link edu.uci.ics.crawler4j.parser.FastHtmlParser},
+     * which scans the content for links, the title and meta tags much faster than Tika but does
+     * not build a document. Pages whose charset is not ASCII compatible are still parsed with Tika,
+     * and the text is only extracted, by Tika, when it is asked for.
+     */
+    public boolean isFastHtmlParsing() {
+        return fastHtmlParsing;
+    }
+
+    public void setFastHtmlParsing(boolean fastHtmlParsing) {
+        this.fastHtmlParsing = fastHtmlParsing;
+    }
+
+    /**
+     * @return the maximum delay in milliseconds applied to hosts asking for a "Crawl-delay"
+     * in their robots.txt
+     */
+    public int getMaxCrawlDelay() {
+        return maxCrawlDelay;
+    }
+
+    public void setMaxCrawlDelay(int maxCrawlDelay) {
+        this.maxCrawlDelay = maxCrawlDelay;
+    }
+
+    /**
+     * @return true if the delay between two requests to a host adapts to how it answers
+     */
+    public boolean isAdaptivePoliteness() {
+        return adaptivePoliteness;
+    }
+
+    public void setAdaptivePoliteness(boolean adaptivePoliteness) {
+        this.adaptivePoliteness = adaptivePoliteness;
+    }
+
+    /**
+     * @return the minimum delay in milliseconds between two requests to a host with adaptive
+     * politeness
+     */
+    public int getMinPolitenessDelay() {
+        return minPolitenessDelay;
+    }
+
+    public void setMinPolitenessDelay(int minPolitenessDelay) {
+        this.minPolitenessDelay = minPolitenessDelay;
+    }
+
+    /**
+     * @return the maximum delay in milliseconds between two requests to a host with adaptive
+     * politeness
+     */
+    public int getMaxPolitenessDelay() {
+        return maxPolitenessDelay;
+    }
+
+    public void setMaxPolitenessDelay(int maxPolitenessDelay) {
+        this.maxPolitenessDelay = maxPolitenessDelay;
+    }
+
+    /**
+     * @return the maximum number of times the fetch of a URL is retried after a transient
+     * failure
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * @return the delay in milliseconds before the first retry of a failed fetch
+     */
+    public int getRetryBaseDelay() {
+        return retryBaseDelay;
+    }
+
+    public void setRetryBaseDelay(int retryBaseDelay) {
+        this.retryBaseDelay = retryBaseDelay;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -761,6 +1175,26 @@ public class CrawlConfig {
         sb.append("Halt on error: " + isHaltOnError() + "\n");
         sb.append("Allow single level domain:" + isAllowSingleLevelDomain() + "\n");
         sb.append("Batch read size: " + getBatchReadSize() + "\n");
+        sb.append("Host partitioned frontier: " + isHostPartitionedFrontier() + "\n");
+        sb.append("In memory docid server: " + isInMemoryDocIdServer() + "\n");
+        sb.append("Docid bloom filter: " + isDocIdBloomFilter() + "\n");
+        sb.append("Docid bloom filter initial size: " + getDocIdBloomFilterInitialSize() + "\n");
+        sb.append("Docid bloom filter false positive rate: " + getDocIdBloomFilterFalsePositiveRate() + "\n");
+        sb.append("Use virtual threads: " + isUseVirtualThreads() + "\n");
+        sb.append("Pipelined crawling: " + isPipelinedCrawling() + "\n");
+        sb.append("Number of parser threads: " + getNumberOfParserThreads() + "\n");
+        sb.append("Number of link scheduler threads: " + getNumberOfLinkSchedulerThreads() + "\n");
+        sb.append("Number of visitor threads: " + getNumberOfVisitorThreads() + "\n");
+        sb.append("Pipeline queue size: " + getPipelineQueueSize() + "\n");
+        sb.append("Content buffer pool size: " + getContentBufferPoolSize() + "\n");
+        sb.append("Lazy HTML parsing: " + isLazyHtmlParsing() + "\n");
+        sb.append("Fast HTML parsing: " + isFastHtmlParsing() + "\n");
+        sb.append("Max crawl delay: " + getMaxCrawlDelay() + "\n");
+        sb.append("Adaptive politeness: " + isAdaptivePoliteness() + "\n");
+        sb.append("Min politeness delay: " + getMinPolitenessDelay() + "\n");
+        sb.append("Max politeness delay: " + getMaxPolitenessDelay() + "\n");
+        sb.append("Max retries: " + getMaxRetries() + "\n");
+        sb.append("Retry base delay: " + getRetryBaseDelay() + "\n");
         return sb.toString();
     }
 }
@@ -33,12 +33,15 @@ import com.sleepycat.je.EnvironmentConfig;
 import edu.uci.ics.crawler4j.fetcher.PageFetcher;
 import edu.uci.ics.crawler4j.frontier.DocIDServer;
 import edu.uci.ics.crawler4j.frontier.Frontier;
+import edu.uci.ics.crawler4j.frontier.HostPartitionedFrontier;
+import edu.uci.ics.crawler4j.frontier.InMemoryDocIDServer;
 import edu.uci.ics.crawler4j.parser.Parser;
 import edu.uci.ics.crawler4j.robotstxt.RobotstxtServer;
 import edu.uci.ics.crawler4j.url.TLDList;
 import edu.uci.ics.crawler4j.url.URLCanonicalizer;
 import edu.uci.ics.crawler4j.url.WebURL;
 import edu.uci.ics.crawler4j.util.IO;
+import edu.uci.ics.crawler4j.util.VirtualThreads;
 
 /**
  * The controller that manages a crawling session. This class creates the
@@ -81,6 +84,11 @@ public class CrawlController {
     protected DocIDServer docIdServer;
     protected TLDList tldList;
 
+    /**
+     * The stages of the current crawling session if pipelined crawling is enabled, otherwise null.
+     */
+    protected CrawlPipeline pipeline;
+
     protected final Object waitingLock = new Object();
     protected final Environment env;
 
@@ -140,8 +148,16 @@ public class CrawlController {
         }
 
         env = new Environment(envHome, envConfig);
-        docIdServer = new DocIDServer(env, config);
-        frontier = new Frontier(env, config);
+        if (config.isInMemoryDocIdServer()) {
+            docIdServer = new InMemoryDocIDServer(env, config);
+        } else {
+            docIdServer = new DocIDServer(env, config);
+        }
+        if (config.isHostPartitionedFrontier()) {
+            frontier = new HostPartitionedFrontier(env, config, pageFetcher.getPolitenessScheduler());
+        } else {
+            frontier = new Frontier(env, config);
+        }
 
         this.pageFetcher = pageFetcher;
         this.parser = parser == null ? new Parser(config, tldList) : parser;
@@ -151,6 +167,7 @@ public class CrawlController {
         shuttingDown = false;
 
         robotstxtServer.setCrawlConfig(config);
+        robotstxtServer.openDatabase(env);
     }
 
     public Parser getParser() {
@@ -275,9 +292,23 @@ public class CrawlController {
             final List<Thread> threads = new ArrayList<>();
             final List<T> crawlers = new ArrayList<>();
 
-            for (int i = 1; i <= numberOfCrawlers; i++) {
+            if (config.isUseVirtualThreads() && !VirtualThreads.isSupported()) {
+                logger.warn("Virtual threads are not supported by this JVM, using platform threads");
+            }
+            int totalNumberOfCrawlers = numberOfCrawlers;
+            if (config.isPipelinedCrawling()) {
+                pipeline = new CrawlPipeline(config, numberOfCrawlers);
+                totalNumberOfCrawlers = pipeline.getNumberOfCrawlers();
+                logger.info("Pipelined crawling with {} fetchers, {} parsers, {} link schedulers and {} visitors",
+                            numberOfCrawlers, pipeline.getNumberOfCrawlers(CrawlPipeline.Stage.PARSE),
+                            pipeline.getNumberOfCrawlers(CrawlPipeline.Stage.SCHEDULE_LINKS),
+                            pipeline.getNumberOfCrawlers(CrawlPipeline.Stage.VISIT));
+            } else {
+                pipeline = null;
+            }
+            for (int i = 1; i <= totalNumberOfCrawlers; i++) {
                 T crawler = crawlerFactory.newInstance();
-                Thread thread = new Thread(crawler, "Crawler " + i);
+                Thread thread = newCrawlerThread(crawler, "Crawler " + i);
                 crawler.setThread(thread);
                 crawler.init(i, this);
                 thread.start();
@@ -303,7 +334,7 @@ public class CrawlController {
                                         if (!shuttingDown && !config.isHaltOnError()) {
                                             logger.info("Thread {} was dead, I'll recreate it", i);
                                             T crawler = crawlerFactory.newInstance();
-                                            thread = new Thread(crawler, "Crawler " + (i + 1));
+                                            thread = newCrawlerThread(crawler, "Crawler " + (i + 1));
                                             threads.remove(i);
                                             threads.add(i, thread);
                                             crawler.setThread(thread);
@@ -321,6 +352,9 @@ public class CrawlController {
                                                 "error on thread [" + threads.get(i).getName() + "]", t);
                                     }
                                 }
+                                if ((pipeline != null) && !pipeline.isIdle()) {
+                                    someoneIsWorking = true;
+                                }
                                 boolean shutOnEmpty = config.isShutdownOnEmptyQueue();
                                 if (!someoneIsWorking && shutOnEmpty) {
                                     // Make sure again that none of the threads
@@ -340,9 +374,13 @@ public class CrawlController {
                                             someoneIsWorking = true;
                                         }
                                     }
+                                    if ((pipeline != null) && !pipeline.isIdle()) {
+                                        someoneIsWorking = true;
+                                    }
                                     if (!someoneIsWorking) {
                                         if (!shuttingDown) {
-                                            long queueLength = frontier.getQueueLength();
+                                            long queueLength = frontier.getQueueLength() +
+                                                               frontier.getNumberOfParkedURLs();
                                             if (queueLength > 0) {
                                                 continue;
                                             }
@@ -352,7 +390,8 @@ public class CrawlController {
                                                 config.getThreadShutdownDelaySeconds() +
                                                 " seconds to make sure...");
                                             sleep(config.getThreadShutdownDelaySeconds());
-                                            queueLength = frontier.getQueueLength();
+                                            queueLength = frontier.getQueueLength() +
+                                                          frontier.getNumberOfParkedURLs();
                                             if (queueLength > 0) {
                                                 continue;
                                             }
@@ -374,9 +413,13 @@ public class CrawlController {
                                             " seconds before final clean up...");
                                         sleep(config.getCleanupDelaySeconds());
 
+                                        // The robots.txt prefetches release their parked URLs to the frontier and the
+                                        // docid server, so they are stopped first
+                                        robotstxtServer.shutDown();
                                         frontier.close();
                                         docIdServer.close();
                                         pageFetcher.shutDown();
+                                        parser.shutDown();
 
                                         finished = true;
                                         waitingLock.notifyAll();
@@ -392,9 +435,13 @@ public class CrawlController {
                             setError(e);
                             synchronized (waitingLock) {
                                 frontier.finish();
+                                // The robots.txt prefetches release their parked URLs to the frontier and the
+                                // docid server, so they are stopped first
+                                robotstxtServer.shutDown();
                                 frontier.close();
                                 docIdServer.close();
                                 pageFetcher.shutDown();
+                                parser.shutDown();
                                 waitingLock.notifyAll();
                                 env.close();
                             }
@@ -467,6 +514,21 @@ public class CrawlController {
         return crawlersLocalData;
     }
 
+    /**
+     * Creates the thread which runs a crawler. When {@link CrawlConfig#isUseVirtualThreads()} is
+     * set and the JVM supports them, this is a virtual thread.
+     *
+     * @param crawler the crawler run by the thread
+     * @param name the name of the thread
+     * @return the new thread, not started yet
+     */
+    protected Thread newCrawlerThread(Runnable crawler, String name) {
+        if (config.isUseVirtualThreads()) {
+            return VirtualThreads.newThread(crawler, name);
+        }
+        return new Thread(crawler, name);
+    }
+
     protected static void sleep(int seconds) {
         try {
             Thread.sleep(seconds * 1000);
@@ -606,6 +668,14 @@ public class CrawlController {
         this.frontier = frontier;
     }
 
+    /**
+     * @return the stages of the current crawling session, or null if pipelined crawling is not
+     * enabled
+     */
+    public CrawlPipeline getPipeline() {
+        return pipeline;
+    }
+
     public DocIDServer getDocIdServer() {
         return docIdServer;
     }
@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.crawler;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The stages of pipelined crawling and the bounded queues of pages between them. Crawlers are
+ * assigned to the stages by their id: the first ones fetch pages, the next ones parse them and
+ * so on, in the order of {@link Stage}.
+ */
+public class CrawlPipeline {
+
+    public enum Stage {
+        FETCH,
+        PARSE,
+        SCHEDULE_LINKS,
+        VISIT
+    }
+
+    private final Map<Stage, Integer> numberOfCrawlers = new EnumMap<>(Stage.class);
+    private final Map<Stage, BlockingQueue<Page>> queues = new EnumMap<>(Stage.class);
+
+    /**
+     * Number of pages which have been fetched, but not completely processed yet.
+     */
+    private final AtomicInteger pagesInProcess = new AtomicInteger();
+
+    public CrawlPipeline(CrawlConfig config, int numberOfFetchers) {
+        int numberOfParsers = config.getNumberOfParserThreads();
+        if (numberOfParsers == 0) {
+            numberOfParsers = Runtime.getRuntime().availableProcessors();
+        }
+        numberOfCrawlers.put(Stage.FETCH, numberOfFetchers);
+        numberOfCrawlers.put(Stage.PARSE, numberOfParsers);
+        numberOfCrawlers.put(Stage.SCHEDULE_LINKS, config.getNumberOfLinkSchedulerThreads());
+        numberOfCrawlers.put(Stage.VISIT, config.getNumberOfVisitorThreads());
+        for (Stage stage : Stage.values()) {
+            if (stage != Stage.FETCH) {
+                queues.put(stage, new ArrayBlockingQueue<>(config.getPipelineQueueSize()));
+            }
+        }
+    }
+
+    /**
+     * @return total number of crawlers of all the stages
+     */
+    public int getNumberOfCrawlers() {
+        int total = 0;
+        for (int count : numberOfCrawlers.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    public int getNumberOfCrawlers(Stage stage) {
+        return numberOfCrawlers.get(stage);
+    }
+
+    /**
+     * @param crawlerId the id of a crawler, starting from 1
+     * @return the stage the crawler works on
+     */
+    public Stage getStage(int crawlerId) {
+        int lastId = 0;
+        for (Stage stage : Stage.values()) {
+            lastId += numberOfCrawlers.get(stage);
+            if (crawlerId <= lastId) {
+                return stage;
+            }
+        }
+        throw new IllegalArgumentException("No stage for crawler: " + crawlerId);
+    }
+
+    /**
+     * @return number of pages waiting for the given stage
+     */
+    public int getQueueSize(Stage stage) {
+        BlockingQueue<Page> queue = queues.get(stage);
+        return (queue == null) ? 0 : queue.size();
+    }
+
+    /**
+     * @return {@code true} if no page is waiting for or being processed by any stage after
+     * fetching
+     */
+    public boolean isIdle() {
+        return pagesInProcess.get() == 0;
+    }
+
+    /**
+     * Called when a fetched page enters the pipeline, before it is offered to the first stage.
+     */
+    void pageStarted() {
+        pagesInProcess.incrementAndGet();
+    }
+
+    /**
+     * Called when a page leaves the pipeline, either because all the stages are done with it or
+     * because one of them dropped it.
+     */
+    void pageCompleted() {
+        pagesInProcess.decrementAndGet();
+    }
+
+    /**
+     * Offers a page to a stage, waiting up to the given time if its queue is full.
+     *
+     * @return {@code false} if the queue stayed full
+     */
+    boolean offer(Stage stage, Page page, long timeout, TimeUnit unit) throws InterruptedException {
+        return queues.get(stage).offer(page, timeout, unit);
+    }
+
+    /**
+     * Takes the next page waiting for a stage, waiting up to the given time for one.
+     *
+     * @return the page, or null if there was none
+     */
+    Page poll(Stage stage, long timeout, TimeUnit unit) throws InterruptedException {
+        return queues.get(stage).poll(timeout, unit);
+    }
+}
@@ -17,19 +17,22 @@
 
 package edu.uci.ics.crawler4j.crawler;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.function.Supplier;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.entity.ContentType;
-import org.apache.http.util.ByteArrayBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import edu.uci.ics.crawler4j.parser.ParseData;
 import edu.uci.ics.crawler4j.url.WebURL;
+import edu.uci.ics.crawler4j.util.ChunkPool;
+import edu.uci.ics.crawler4j.util.ContentBuffer;
 
 /**
  * This class contains the data for a fetched and parsed page.
@@ -61,10 +64,21 @@ public class Page {
     protected int statusCode;
 
     /**
-     * The content of this page in binary format.
+     * The content of this page in binary format. When the page is loaded from an entity, it is
+     * only copied here from {@link #content} the first time {@link #getContentData()} is called.
      */
     protected byte[] contentData;
 
+    /**
+     * The content of this page as it was read from the entity, or null if it was set as an array.
+     */
+    protected ContentBuffer content;
+
+    /**
+     * Whether {@link #content} was returned to its pool and can no longer be read.
+     */
+    private boolean contentReleased;
+
     /**
      * The ContentType of this page.
      * For example: "text/html; charset=UTF-8"
@@ -87,6 +101,7 @@ public class Page {
      * Language of the Content.
      */
     private String language;
+    private Supplier<String> languageLoader;
 
     /**
      * Headers which were present in the response of the fetch request
@@ -118,39 +133,35 @@ public class Page {
      * @throws IOException Thrown when reading fails for any reason
      */
     protected byte[] toByteArray(HttpEntity entity, int maxBytes) throws IOException {
+        return readContent(entity, maxBytes).toByteArray();
+    }
+
+    /**
+     * Reads the contents of an entity into a buffer of chunks, with a specified maximum. The
+     * content is not copied again after it is read.
+     *
+     * @param entity The entity from which to read
+     * @param maxBytes The maximum number of bytes to read
+     * @return A buffer containing maxBytes or fewer bytes read from the entity
+     *
+     * @throws IOException Thrown when reading fails for any reason
+     */
+    protected ContentBuffer readContent(HttpEntity entity, int maxBytes) throws IOException {
+        return readContent(entity, maxBytes, null);
+    }
+
+    private ContentBuffer readContent(HttpEntity entity, int maxBytes, ChunkPool chunkPool)
+        throws IOException {
+        ContentBuffer buffer = new ContentBuffer(chunkPool);
         if (entity == null) {
-            return new byte[0];
+            return buffer;
         }
         try (InputStream is = entity.getContent()) {
-            int size = (int) entity.getContentLength();
-            int readBufferLength = size;
-
-            if (readBufferLength <= 0) {
-                readBufferLength = 4096;
-            }
-            // in case when the maxBytes is less than the actual page size
-            readBufferLength = Math.min(readBufferLength, maxBytes);
-
-            // We allocate the buffer with either the actual size of the entity (if available)
-            // or with the default 4KiB if the server did not return a value to avoid allocating
-            // the full maxBytes (for the cases when the actual size will be smaller than maxBytes).
-            ByteArrayBuffer buffer = new ByteArrayBuffer(readBufferLength);
-
-            byte[] tmpBuff = new byte[4096];
-            int dataLength;
-
-            while ((dataLength = is.read(tmpBuff)) != -1) {
-                if (maxBytes > 0 && (buffer.length() + dataLength) > maxBytes) {
-                    truncated = true;
-                    dataLength = maxBytes - buffer.length();
-                }
-                buffer.append(tmpBuff, 0, dataLength);
-                if (truncated) {
-                    break;
-                }
+            if (buffer.readFrom(is, maxBytes)) {
+                truncated = true;
             }
-            return buffer.toByteArray();
         }
+        return buffer;
     }
 
     /**
@@ -161,6 +172,19 @@ public class Page {
      * @throws IOException when load fails
      */
     public void load(HttpEntity entity, int maxBytes) throws IOException {
+        load(entity, maxBytes, null);
+    }
+
+    /**
+     * Loads the content of this page from a fetched HttpEntity, into chunks taken from a pool.
+     * The chunks are returned to the pool by {@link #releaseContent()}.
+     *
+     * @param entity HttpEntity
+     * @param maxBytes The maximum number of bytes to read
+     * @param chunkPool The pool of chunks, or null to allocate new chunks
+     * @throws IOException when load fails
+     */
+    public void load(HttpEntity entity, int maxBytes, ChunkPool chunkPool) throws IOException {
 
         contentType = null;
         Header type = entity.getContentType();
@@ -186,7 +210,9 @@ public class Page {
             contentCharset = charset.displayName();
         }
 
-        contentData = toByteArray(entity, maxBytes);
+        content = readContent(entity, maxBytes, chunkPool);
+        contentData = null;
+        contentReleased = false;
     }
 
     public WebURL getWebURL() {
@@ -249,11 +275,65 @@ public class Page {
      * @return content of this page in binary format.
      */
     public byte[] getContentData() {
+        checkContentAvailable();
+        if ((contentData == null) && (content != null)) {
+            contentData = content.toByteArray();
+        }
         return contentData;
     }
 
     public void setContentData(byte[] contentData) {
         this.contentData = contentData;
+        this.content = null;
+        this.contentReleased = false;
+    }
+
+    /**
+     * @return a stream over the content of this page, which does not copy the content if it was
+     * loaded from an entity
+     */
+    public InputStream getContentStream() {
+        checkContentAvailable();
+        if (content != null) {
+            return content.newInputStream();
+        }
+        return new ByteArrayInputStream((contentData == null) ? new byte[0] : contentData);
+    }
+
+    /**
+     * Returns the chunks of the content to the pool they were taken from, if any. Afterwards the
+     * content can only be read if it had been copied by {@link #getContentData()} before, reading
+     * it otherwise throws an {@link IllegalStateException}, and so do the lazily parsed text, html
+     * and language which were not read before.
+     */
+    public void releaseContent() {
+        if ((content != null) && content.isPooled()) {
+            content.release();
+            content = null;
+            contentReleased = true;
+        }
+    }
+
+    private void checkContentAvailable() {
+        if (contentReleased && (contentData == null)) {
+            throw new IllegalStateException("The content of " + url.getURL() + " was released");
+        }
+    }
+
+    /**
+     * Decodes the content of this page, without copying it into a single array first if it was
+     * loaded from an entity.
+     *
+     * @param charset the charset of the content
+     * @return the decoded content
+     * @throws IOException when decoding fails
+     */
+    public String getContentAsString(Charset charset) throws IOException {
+        checkContentAvailable();
+        if ((content != null) && (contentData == null)) {
+            return content.toString(charset);
+        }
+        return new String(getContentData(), charset);
     }
 
     /**
@@ -296,11 +376,25 @@ public class Page {
      * @return Language
      */
     public String getLanguage() {
+        if ((language == null) && (languageLoader != null)) {
+            language = languageLoader.get();
+            languageLoader = null;
+        }
         return language;
     }
 
     public void setLanguage(String language) {
         this.language = language;
+        this.languageLoader = null;
+    }
+
+    /**
+     * Sets a function which identifies the language of the page. It is only called the first
+     * time {@link #getLanguage()} is called.
+     */
+    public void setLanguageLoader(Supplier<String> languageLoader) {
+        this.language = null;
+        this.languageLoader = languageLoader;
     }
 
     public boolean isTruncated() {
@@ -18,12 +18,22 @@
 package edu.uci.ics.crawler4j.crawler;
 
 import java.io.IOException;
+import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpStatus;
+import org.apache.http.NoHttpResponseException;
 import org.apache.http.impl.EnglishReasonPhraseCatalog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +41,7 @@ import org.slf4j.LoggerFactory;
 import edu.uci.ics.crawler4j.crawler.exceptions.ContentFetchException;
 import edu.uci.ics.crawler4j.crawler.exceptions.PageBiggerThanMaxSizeException;
 import edu.uci.ics.crawler4j.crawler.exceptions.ParseException;
+import edu.uci.ics.crawler4j.fetcher.AsyncPageFetcher;
 import edu.uci.ics.crawler4j.fetcher.PageFetchResult;
 import edu.uci.ics.crawler4j.fetcher.PageFetcher;
 import edu.uci.ics.crawler4j.frontier.DocIDServer;
@@ -51,6 +62,18 @@ public class WebCrawler implements Runnable {
 
     protected static final Logger logger = LoggerFactory.getLogger(WebCrawler.class);
 
+    /**
+     * How long crawlers of the pipeline stages wait for a page before checking whether the crawl
+     * is finished.
+     */
+    private static final long PIPELINE_WAIT_MILLIS = 1000;
+
+    /**
+     * How long crawlers fetching asynchronously wait for a response before checking whether the
+     * controller is shutting down.
+     */
+    private static final long ASYNC_FETCH_WAIT_MILLIS = 1000;
+
     /**
      * The id associated to the crawler thread running this instance
      */
@@ -102,10 +125,26 @@ public class WebCrawler implements Runnable {
      */
     private boolean isWaitingForNewURLs;
 
+    /**
+     * Whether the URL of the last call to {@link #fetchPage(WebURL, PageFetch)} was scheduled to
+     * be retried, in which case it is not processed yet.
+     */
+    private boolean retryScheduled;
+
     private Throwable error;
 
     private int batchReadSize;
 
+    /**
+     * The stages of pipelined crawling, or null if it is not enabled.
+     */
+    private CrawlPipeline pipeline;
+
+    /**
+     * The stage this crawler works on in pipelined crawling.
+     */
+    private CrawlPipeline.Stage stage;
+
     /**
      * Initializes the current instance of the crawler
      *
@@ -127,6 +166,8 @@ public class WebCrawler implements Runnable {
         this.myController = crawlController;
         this.isWaitingForNewURLs = false;
         this.batchReadSize = crawlController.getConfig().getBatchReadSize();
+        this.pipeline = crawlController.getPipeline();
+        this.stage = (pipeline == null) ? CrawlPipeline.Stage.FETCH : pipeline.getStage(id);
     }
 
     /**
@@ -314,6 +355,10 @@ public class WebCrawler implements Runnable {
         try {
             onStart();
             setError(null);
+            if (stage != CrawlPipeline.Stage.FETCH) {
+                runStage();
+                return;
+            }
             boolean halt = false;
             while (!halt) {
                 List<WebURL> assignedURLs = new ArrayList<>(batchReadSize);
@@ -329,6 +374,10 @@ public class WebCrawler implements Runnable {
                     } catch (InterruptedException e) {
                         logger.error("Error occurred", e);
                     }
+                } else if (pageFetcher instanceof AsyncPageFetcher) {
+                    if (!processPagesAsync((AsyncPageFetcher) pageFetcher, assignedURLs)) {
+                        return;
+                    }
                 } else {
                     for (WebURL curURL : assignedURLs) {
                         if (myController.isShuttingDown()) {
@@ -336,9 +385,12 @@ public class WebCrawler implements Runnable {
                             return;
                         }
                         if (curURL != null) {
-                            curURL = handleUrlBeforeProcess(curURL);
-                            processPage(curURL);
-                            frontier.setProcessed(curURL);
+                            WebURL urlToProcess = handleUrlBeforeProcess(curURL);
+                            if (urlToProcess == null) {
+                                frontier.setProcessed(curURL);
+                            } else {
+                                processPage(urlToProcess);
+                            }
                         }
                     }
                 }
@@ -410,15 +462,165 @@ public class WebCrawler implements Runnable {
         // Sub-classed should override this to add their custom functionality
     }
 
-    private void processPage(WebURL curURL) throws IOException, InterruptedException, ParseException {
+    /**
+     * Fetches a page, either by sending the request or by waiting for a request which has been
+     * sent before.
+     */
+    @FunctionalInterface
+    private interface PageFetch {
+        PageFetchResult fetch() throws InterruptedException, IOException, PageBiggerThanMaxSizeException;
+    }
+
+    /**
+     * Fetches all the URLs of the batch concurrently and processes the pages in the order their
+     * responses arrive.
+     *
+     * @return {@code false} if the crawler should stop because the controller is shutting down
+     */
+    private boolean processPagesAsync(AsyncPageFetcher asyncPageFetcher, List<WebURL> assignedURLs)
+        throws IOException, InterruptedException, ParseException {
+        Map<WebURL, CompletableFuture<PageFetchResult>> fetches = new IdentityHashMap<>();
+        BlockingQueue<WebURL> fetched = new LinkedBlockingQueue<>();
+        boolean processed = false;
+        try {
+            for (WebURL assignedURL : assignedURLs) {
+                if (assignedURL != null) {
+                    WebURL curURL = handleUrlBeforeProcess(assignedURL);
+                    if (curURL == null) {
+                        frontier.setProcessed(assignedURL);
+                        continue;
+                    }
+                    CompletableFuture<PageFetchResult> fetch = asyncPageFetcher.fetchPageAsync(curURL);
+                    fetches.put(curURL, fetch);
+                    fetch.whenComplete((result, e) -> fetched.add(curURL));
+                }
+            }
+            for (int i = 0; i < fetches.size(); i++) {
+                WebURL curURL = null;
+                while (curURL == null) {
+                    if (myController.isShuttingDown()) {
+                        logger.info("Exiting because of controller shutdown.");
+                        return false;
+                    }
+                    curURL = fetched.poll(ASYNC_FETCH_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                CompletableFuture<PageFetchResult> fetch = fetches.get(curURL);
+                processPage(curURL, () -> AsyncPageFetcher.join(fetch));
+            }
+            processed = true;
+            return true;
+        } finally {
+            if (!processed) {
+                // The crawler stops with this batch, so the requests which are still pending are
+                // not needed anymore, cancelling them drops or aborts them
+                fetches.values().forEach(fetch -> fetch.cancel(false));
+            }
+        }
+    }
+
+    /**
+     * Processes the pages of a stage after fetching, until the crawl is finished.
+     */
+    private void runStage() throws InterruptedException, ParseException {
+        while (!(myController.getConfig().isHaltOnError() && myController.getError() != null)) {
+            isWaitingForNewURLs = true;
+            Page page = pipeline.poll(stage, PIPELINE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            isWaitingForNewURLs = false;
+            if (page == null) {
+                if (frontier.isFinished() || myController.isShuttingDown()) {
+                    return;
+                }
+                continue;
+            }
+            // The page is completed unless it was passed on, even if its stage throws, so it is
+            // not left in process and its content is released
+            boolean passedOn = false;
+            try {
+                switch (stage) {
+                    case PARSE:
+                        if (parsePage(page)) {
+                            passOn(CrawlPipeline.Stage.SCHEDULE_LINKS, page);
+                            passedOn = true;
+                        }
+                        break;
+                    case SCHEDULE_LINKS:
+                        if (scheduleOutgoingLinks(page)) {
+                            passOn(CrawlPipeline.Stage.VISIT, page);
+                            passedOn = true;
+                        }
+                        break;
+                    case VISIT:
+                        visitPage(page);
+                        break;
+                }
+            } finally {
+                if (!passedOn) {
+                    completePage(page);
+                }
+            }
+        }
+        logger.info("halting because an error has occurred on another thread");
+    }
+
+    /**
+     * Passes a page on to the next stage, waiting while its queue is full.
+     */
+    private void passOn(CrawlPipeline.Stage nextStage, Page page) throws InterruptedException {
+        while (!pipeline.offer(nextStage, page, PIPELINE_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (myController.isShuttingDown() || frontier.isFinished()) {
+                completePage(page);
+                return;
+            }
+        }
+    }
+
+    private void completePage(Page page) {
+        page.releaseContent();
+        frontier.setProcessed(page.getWebURL());
+        pipeline.pageCompleted();
+    }
+
+    private void processPage(WebURL curURL) throws InterruptedException, ParseException {
+        processPage(curURL, () -> pageFetcher.fetchPage(curURL));
+    }
+
+    /**
+     * Fetches a page and, unless pipelined crawling is enabled, also parses it, schedules its
+     * outgoing links and visits it. In pipelined crawling the page is passed on to the parsers.
+     */
+    private void processPage(WebURL curURL, PageFetch pageFetch)
+        throws InterruptedException, ParseException {
+        Page page = fetchPage(curURL, pageFetch);
+        if (page == null) {
+            if (!retryScheduled) {
+                frontier.setProcessed(curURL);
+            }
+        } else if (pipeline != null) {
+            pipeline.pageStarted();
+            passOn(CrawlPipeline.Stage.PARSE, page);
+        } else {
+            if (parsePage(page) && scheduleOutgoingLinks(page)) {
+                visitPage(page);
+            }
+            page.releaseContent();
+            frontier.setProcessed(curURL);
+        }
+    }
+
+    /**
+     * Fetches a page and handles its status code, including following redirects.
+     *
+     * @return the page with its content if it should be parsed, otherwise null
+     */
+    private Page fetchPage(WebURL curURL, PageFetch pageFetch) {
         PageFetchResult fetchResult = null;
         Page page = new Page(curURL);
+        retryScheduled = false;
         try {
             if (curURL == null) {
-                return;
+                return null;
             }
-
-            fetchResult = pageFetcher.fetchPage(curURL);
+            fetchResult = pageFetch.fetch();
             int statusCode = fetchResult.getStatusCode();
             handlePageStatusCode(curURL, statusCode,
                                  EnglishReasonPhraseCatalog.INSTANCE.getReason(statusCode,
@@ -442,7 +644,7 @@ public class WebCrawler implements Runnable {
                     String movedToUrl = fetchResult.getMovedToUrl();
                     if (movedToUrl == null) {
                         onRedirectedToInvalidUrl(page);
-                        return;
+                        return null;
                     }
                     page.setRedirectedToUrl(movedToUrl);
                     onRedirectedStatusCode(page);
@@ -451,7 +653,7 @@ public class WebCrawler implements Runnable {
                         int newDocId = docIdServer.getDocId(movedToUrl);
                         if (newDocId > 0) {
                             logger.debug("Redirect page: {} is already seen", curURL);
-                            return;
+                            return null;
                         }
 
                         WebURL webURL = new WebURL();
@@ -477,6 +679,10 @@ public class WebCrawler implements Runnable {
                         }
                     }
                 } else { // All other http codes other than 3xx & 200
+                    if (((statusCode == 429) || (statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR)) &&
+                        retryLater(curURL, PageFetcher.getRetryAfter(fetchResult.getResponseHeaders()))) {
+                        return null;
+                    }
                     String description =
                         EnglishReasonPhraseCatalog.INSTANCE.getReason(fetchResult.getStatusCode(),
                                                                       Locale.ENGLISH); // Finds
@@ -492,7 +698,7 @@ public class WebCrawler implements Runnable {
                 if (!curURL.getURL().equals(fetchResult.getFetchedUrl())) {
                     if (docIdServer.isSeenBefore(fetchResult.getFetchedUrl())) {
                         logger.debug("Redirect page: {} has already been seen", curURL);
-                        return;
+                        return null;
                     }
                     curURL.setURL(fetchResult.getFetchedUrl());
                     curURL.setDocid(docIdServer.getNewDocID(fetchResult.getFetchedUrl()));
@@ -510,77 +716,190 @@ public class WebCrawler implements Runnable {
                         myController.getConfig().getMaxDownloadSize(), curURL.getURL());
                 }
 
-                parser.parse(page, curURL.getURL());
-
-                if (shouldFollowLinksIn(page.getWebURL())) {
-                    ParseData parseData = page.getParseData();
-                    List<WebURL> toSchedule = new ArrayList<>();
-                    int maxCrawlDepth = myController.getConfig().getMaxDepthOfCrawling();
-                    for (WebURL webURL : parseData.getOutgoingUrls()) {
-                        webURL.setParentDocid(curURL.getDocid());
-                        webURL.setParentUrl(curURL.getURL());
-                        int newdocid = docIdServer.getDocId(webURL.getURL());
-                        if (newdocid > 0) {
-                            // This is not the first time that this Url is visited. So, we set the
-                            // depth to a negative number.
-                            webURL.setDepth((short) -1);
-                            webURL.setDocid(newdocid);
-                        } else {
-                            webURL.setDocid(-1);
-                            webURL.setDepth((short) (curURL.getDepth() + 1));
-                            if ((maxCrawlDepth == -1) || (curURL.getDepth() < maxCrawlDepth)) {
-                                if (shouldVisit(page, webURL)) {
-                                    if (robotstxtServer.allows(webURL)) {
-                                        webURL.setDocid(docIdServer.getNewDocID(webURL.getURL()));
-                                        toSchedule.add(webURL);
-                                    } else {
-                                        logger.debug(
-                                            "Not visiting: {} as per the server's \"robots.txt\" " +
-                                            "policy", webURL.getURL());
-                                    }
+                return page;
+            }
+        } catch (PageBiggerThanMaxSizeException e) {
+            onPageBiggerThanMaxSize(curURL.getURL(), e.getPageSize());
+        } catch (ContentFetchException | SocketTimeoutException cfe) {
+            if (!(cfe instanceof SocketTimeoutException) || !retryLater(curURL, 0)) {
+                onContentFetchError(curURL);
+                onContentFetchError(page);
+            }
+        } catch (SocketException | NoHttpResponseException e) {
+            if (!retryLater(curURL, 0)) {
+                onUnhandledException(curURL, e);
+            }
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            onUnhandledException(curURL, e);
+        } finally {
+            if (fetchResult != null) {
+                fetchResult.discardContentIfNotConsumed();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Schedules a URL to be fetched again after a transient failure, unless it has been retried
+     * {@link CrawlConfig#getMaxRetries()} times already. The delay before the retry starts at
+     * {@link CrawlConfig#getRetryBaseDelay()} and doubles with each attempt, unless the server
+     * asked for a longer one.
+     *
+     * @param retryAfter the number of milliseconds the server asked to wait, or 0
+     * @return {@code true} if the URL will be retried, it is then no longer in process
+     */
+    private boolean retryLater(WebURL webURL, long retryAfter) {
+        CrawlConfig config = myController.getConfig();
+        int attempts = webURL.getAttempts();
+        if (attempts >= config.getMaxRetries()) {
+            return false;
+        }
+        long delay = Math.max((long) config.getRetryBaseDelay() << Math.min(attempts, 20), retryAfter);
+        webURL.setAttempts((short) (attempts + 1));
+        webURL.setNotBefore(System.currentTimeMillis() + delay);
+        if (!frontier.scheduleRetry(webURL)) {
+            return false;
+        }
+        retryScheduled = true;
+        logger.debug("Retrying: {} in {} ms, attempt {} of {}", webURL.getURL(), delay, attempts + 1,
+                     config.getMaxRetries());
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the page is parsed and should be processed further
+     */
+    private boolean parsePage(Page page) throws ParseException {
+        WebURL curURL = page.getWebURL();
+        try {
+            parser.parse(page, curURL.getURL());
+            return true;
+        } catch (ParseException pe) {
+            onParseError(curURL, pe);
+        } catch (NotAllowedContentException nace) {
+            logger.debug(
+                "Skipping: {} as it contains binary content which you configured not to crawl",
+                curURL.getURL());
+        } catch (RuntimeException e) {
+            onUnhandledException(curURL, e);
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} if the page should be visited, which it is not if scheduling its links
+     * threw, as when a page failed to be processed
+     */
+    private boolean scheduleOutgoingLinks(Page page) {
+        WebURL curURL = page.getWebURL();
+        try {
+            if (shouldFollowLinksIn(page.getWebURL())) {
+                ParseData parseData = page.getParseData();
+                Set<WebURL> outgoingUrls = parseData.getOutgoingUrls();
+                List<WebURL> toSchedule = new ArrayList<>();
+                Map<String, List<WebURL>> toPark = new HashMap<>();
+                int maxCrawlDepth = myController.getConfig().getMaxDepthOfCrawling();
+                for (WebURL webURL : outgoingUrls) {
+                    webURL.setParentDocid(curURL.getDocid());
+                    webURL.setParentUrl(curURL.getURL());
+                }
+                // Looks up the docids of all links at once, unseen links get -1
+                docIdServer.resolveAll(outgoingUrls);
+                for (WebURL webURL : outgoingUrls) {
+                    if (webURL.getDocid() > 0) {
+                        // This is not the first time that this Url is visited. So, we set the
+                        // depth to a negative number.
+                        webURL.setDepth((short) -1);
+                    } else {
+                        webURL.setDepth((short) (curURL.getDepth() + 1));
+                        if ((maxCrawlDepth == -1) || (curURL.getDepth() < maxCrawlDepth)) {
+                            if (shouldVisit(page, webURL)) {
+                                if (robotstxtServer.isPrefetching() && !robotstxtServer.hasDirectives(webURL)) {
+                                    // The robots.txt of the host is fetched in the background
+                                    toPark.computeIfAbsent(webURL.getHost(), host -> new ArrayList<>())
+                                          .add(webURL);
+                                } else if (robotstxtServer.allows(webURL)) {
+                                    toSchedule.add(webURL);
                                 } else {
                                     logger.debug(
-                                        "Not visiting: {} as per your \"shouldVisit\" policy",
-                                        webURL.getURL());
+                                        "Not visiting: {} as per the server's \"robots.txt\" " +
+                                        "policy", webURL.getURL());
                                 }
+                            } else {
+                                logger.debug(
+                                    "Not visiting: {} as per your \"shouldVisit\" policy",
+                                    webURL.getURL());
                             }
                         }
                     }
-                    frontier.scheduleAll(toSchedule);
-                } else {
-                    logger.debug("Not looking for links in page {}, "
-                                 + "as per your \"shouldFollowLinksInPage\" policy",
-                                 page.getWebURL().getURL());
                 }
+                frontier.scheduleAll(docIdServer.assignAll(toSchedule));
+                for (Map.Entry<String, List<WebURL>> entry : toPark.entrySet()) {
+                    String host = entry.getKey();
+                    frontier.park(host, entry.getValue());
+                    robotstxtServer.prefetch(entry.getValue().get(0))
+                                   .whenComplete((result, error) -> releaseParkedURLs(host, error));
+                }
+            } else {
+                logger.debug("Not looking for links in page {}, "
+                             + "as per your \"shouldFollowLinksInPage\" policy",
+                             page.getWebURL().getURL());
+            }
+            return true;
+        } catch (RuntimeException e) {
+            onUnhandledException(curURL, e);
+            return false;
+        }
+    }
 
-                boolean noIndex = myController.getConfig().isRespectNoIndex() &&
-                    page.getContentType() != null &&
-                    page.getContentType().contains("html") &&
-                    ((HtmlParseData)page.getParseData())
-                        .getMetaTagValue("robots").
-                        contains("noindex");
-
-                if (!noIndex) {
-                    visit(page);
+    /**
+     * Schedules the URLs parked for a host which its robots.txt allows, once it is fetched, and
+     * drops the others. They are all dropped if it could not be fetched.
+     */
+    private void releaseParkedURLs(String host, Throwable prefetchError) {
+        if (frontier.isFinished()) {
+            // The frontier may be closed already, the URLs are dropped with the crawl
+            return;
+        }
+        List<WebURL> parked = frontier.unpark(host);
+        List<WebURL> toSchedule = new ArrayList<>();
+        try {
+            if (prefetchError != null) {
+                logger.warn("Not visiting {} URLs of {} as its \"robots.txt\" could not be fetched: {}",
+                            parked.size(), host, prefetchError.getMessage());
+                return;
+            }
+            for (WebURL webURL : parked) {
+                if (robotstxtServer.allows(webURL)) {
+                    toSchedule.add(webURL);
+                } else {
+                    logger.debug("Not visiting: {} as per the server's \"robots.txt\" policy",
+                                 webURL.getURL());
                 }
             }
-        } catch (PageBiggerThanMaxSizeException e) {
-            onPageBiggerThanMaxSize(curURL.getURL(), e.getPageSize());
-        } catch (ParseException pe) {
-            onParseError(curURL, pe);
-        } catch (ContentFetchException | SocketTimeoutException cfe) {
-            onContentFetchError(curURL);
-            onContentFetchError(page);
-        } catch (NotAllowedContentException nace) {
-            logger.debug(
-                "Skipping: {} as it contains binary content which you configured not to crawl",
-                curURL.getURL());
+            toSchedule = docIdServer.assignAll(toSchedule);
         } catch (IOException | InterruptedException | RuntimeException e) {
-            onUnhandledException(curURL, e);
+            logger.error("Error while releasing the URLs of " + host, e);
+            toSchedule.clear();
         } finally {
-            if (fetchResult != null) {
-                fetchResult.discardContentIfNotConsumed();
+            frontier.scheduleUnparked(toSchedule, parked.size());
+        }
+    }
+
+    private void visitPage(Page page) {
+        try {
+            boolean noIndex = myController.getConfig().isRespectNoIndex() &&
+                page.getContentType() != null &&
+                page.getContentType().contains("html") &&
+                ((HtmlParseData)page.getParseData())
+                    .getMetaTagValue("robots").
+                    contains("noindex");
+
+            if (!noIndex) {
+                visit(page);
             }
+        } catch (RuntimeException e) {
+            onUnhandledException(page.getWebURL(), e);
         }
     }
 
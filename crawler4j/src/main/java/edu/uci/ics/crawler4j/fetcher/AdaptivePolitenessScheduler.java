@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.fetcher;
+
+import java.util.concurrent.ExecutionException;
+
+import org.apache.http.HttpStatus;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+
+/**
+ * A {@link PolitenessScheduler} which adapts the delay of each host to how it answers, in the
+ * manner of the additive increase, multiplicative decrease of TCP congestion control: every
+ * response which is not throttled shortens the delay of its host by a constant step, down to
+ * {@link CrawlConfig#getMinPolitenessDelay()}, while a 429 or 503 response or a failed request
+ * doubles it, up to {@link CrawlConfig#getMaxPolitenessDelay()}. A "Retry-After" header also
+ * holds back the next request to its host for the time it asks.
+ *
+ * The delay of a host is never shorter than its average latency divided by the maximum number
+ * of connections per host, which bounds the number of requests in flight to it: a host which
+ * gets slower is sent fewer concurrent requests. The "Crawl-delay" of its robots.txt still
+ * applies.
+ */
+public class AdaptivePolitenessScheduler extends PolitenessScheduler {
+
+    /**
+     * The number of milliseconds the delay of a host is shortened by after each response.
+     */
+    private static final long ADDITIVE_STEP = 20;
+
+    /**
+     * The shortest delay after a throttled or failed request, for hosts whose delay was 0.
+     */
+    private static final long MIN_BACKOFF = 250;
+
+    /**
+     * The weight of the latest latency in the average latency of a host.
+     */
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private static final int MAX_TRACKED_HOSTS = 100000;
+
+    private final Cache<String, HostState> hostStates =
+        CacheBuilder.newBuilder().maximumSize(MAX_TRACKED_HOSTS).build();
+
+    public AdaptivePolitenessScheduler(CrawlConfig config) {
+        super(config);
+    }
+
+    @Override
+    public long getDelay(String host) {
+        HostState state = hostStates.getIfPresent(host);
+        if (state == null) {
+            return super.getDelay(host);
+        }
+        return Math.max(state.getDelay(config.getMaxConnectionsPerHost()), getCrawlDelay(host));
+    }
+
+    @Override
+    public void onResponse(String host, int statusCode, long latency, long retryAfter) {
+        HostState state = getState(host);
+        if ((statusCode == 429) || (statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE)) {
+            state.backOff(latency);
+        } else {
+            state.speedUp(latency);
+        }
+        if (retryAfter > 0) {
+            delayUntil(host, System.currentTimeMillis() + Math.min(retryAfter, config.getMaxPolitenessDelay()));
+        }
+    }
+
+    @Override
+    public void onFailure(String host, long latency) {
+        getState(host).backOff(latency);
+    }
+
+    private HostState getState(String host) {
+        try {
+            return hostStates.get(host, () -> new HostState(clamp(config.getPolitenessDelay())));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private long clamp(long delay) {
+        return Math.max(config.getMinPolitenessDelay(), Math.min(config.getMaxPolitenessDelay(), delay));
+    }
+
+    private final class HostState {
+        private long delay;
+        private double latency = -1;
+
+        HostState(long delay) {
+            this.delay = delay;
+        }
+
+        synchronized long getDelay(int maxConnections) {
+            long latencyDelay = (latency < 0) ? 0 : (long) (latency / Math.max(1, maxConnections));
+            return Math.max(delay, clamp(latencyDelay));
+        }
+
+        synchronized void speedUp(long latency) {
+            addLatency(latency);
+            delay = clamp(delay - ADDITIVE_STEP);
+        }
+
+        synchronized void backOff(long latency) {
+            addLatency(latency);
+            delay = clamp(Math.max(delay * 2, MIN_BACKOFF));
+        }
+
+        private void addLatency(long sample) {
+            latency = (latency < 0) ? sample : ((1 - LATENCY_WEIGHT) * latency + LATENCY_WEIGHT * sample);
+        }
+    }
+}
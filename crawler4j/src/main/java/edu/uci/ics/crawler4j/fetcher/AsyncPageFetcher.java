@@ -0,0 +1,291 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.fetcher;
+
+import java.io.IOException;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.ManagedNHttpClientConnectionFactory;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.ssl.SSLContexts;
+
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.crawler.exceptions.PageBiggerThanMaxSizeException;
+import edu.uci.ics.crawler4j.url.WebURL;
+
+/**
+ * A {@link PageFetcher} which sends its requests through a non-blocking HTTP client. A few I/O
+ * threads serve all the connections, so thousands of requests can be in flight at the same time
+ * without a thread waiting for each of them. Responses are buffered in memory, up to the maximum
+ * download size.
+ *
+ * <p>When a crawler uses this fetcher, it fetches all the URLs of a batch concurrently and
+ * processes the pages in the order they arrive. The number of requests in flight is therefore
+ * the number of crawlers times {@link CrawlConfig#getBatchReadSize()}, and the maximum number of
+ * connections should be raised accordingly.</p>
+ *
+ * <p>The synchronous client of {@link PageFetcher} is still used for form logins, whose cookies
+ * are shared, and {@link #fetchPage(WebURL)} blocks until the asynchronous request completes.</p>
+ *
+ * <p>Cancelling the future of a fetch drops its request if it is still waiting for the politeness
+ * delay, or aborts it if it was sent. Shutting the fetcher down fails the fetches which are still
+ * pending.</p>
+ */
+public class AsyncPageFetcher extends PageFetcher {
+
+    protected final PoolingNHttpClientConnectionManager asyncConnectionManager;
+    protected final CloseableHttpAsyncClient asyncClient;
+
+    /**
+     * Sends the requests which have to wait for the politeness delay of their host.
+     */
+    private final ScheduledExecutorService delayedRequests;
+
+    /**
+     * The fetches which are not completed yet, which are failed when the fetcher is shut down.
+     */
+    private final Set<CompletableFuture<PageFetchResult>> pendingFetches = ConcurrentHashMap.newKeySet();
+
+    public AsyncPageFetcher(CrawlConfig config)
+            throws NoSuchAlgorithmException, KeyManagementException, KeyStoreException, IOReactorException {
+        super(config);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setExpectContinueEnabled(false)
+                .setCookieSpec(config.getCookiePolicy())
+                .setRedirectsEnabled(false)
+                .setSocketTimeout(config.getSocketTimeout())
+                .setConnectTimeout(config.getConnectionTimeout())
+                .build();
+
+        RegistryBuilder<SchemeIOSessionStrategy> sessionStrategyRegistryBuilder = RegistryBuilder.create();
+        sessionStrategyRegistryBuilder.register("http", NoopIOSessionStrategy.INSTANCE);
+        if (config.isIncludeHttpsPages()) {
+            try {
+                // By always trusting the ssl certificate, as the synchronous client does
+                SSLContext sslContext =
+                        SSLContexts.custom().loadTrustMaterial(null, (chain, authType) -> true).build();
+                sessionStrategyRegistryBuilder.register("https",
+                        new SSLIOSessionStrategy(sslContext, NoopHostnameVerifier.INSTANCE));
+            } catch (NoSuchAlgorithmException | KeyManagementException | KeyStoreException | RuntimeException e) {
+                if (config.isHaltOnError()) {
+                    throw e;
+                } else {
+                    logger.warn("Exception thrown while trying to register https for asynchronous requests");
+                    logger.debug("Stacktrace", e);
+                }
+            }
+        }
+        Registry<SchemeIOSessionStrategy> sessionStrategyRegistry = sessionStrategyRegistryBuilder.build();
+
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setConnectTimeout(config.getConnectionTimeout())
+                .setSoTimeout(config.getSocketTimeout())
+                .build();
+        asyncConnectionManager = new PoolingNHttpClientConnectionManager(
+                new DefaultConnectingIOReactor(ioReactorConfig), ManagedNHttpClientConnectionFactory.INSTANCE,
+                sessionStrategyRegistry, config.getDnsResolver());
+        asyncConnectionManager.setMaxTotal(config.getMaxTotalConnections());
+        asyncConnectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerHost());
+
+        HttpAsyncClientBuilder clientBuilder = HttpAsyncClientBuilder.create();
+        clientBuilder.setDefaultCookieStore(cookieStore);
+        clientBuilder.setDefaultRequestConfig(requestConfig);
+        clientBuilder.setConnectionManager(asyncConnectionManager);
+        clientBuilder.setUserAgent(config.getUserAgentString());
+        clientBuilder.setDefaultHeaders(config.getDefaultHeaders());
+        if (credentialsProvider != null) {
+            clientBuilder.setDefaultCredentialsProvider(credentialsProvider);
+        }
+        if (config.getProxyHost() != null) {
+            clientBuilder.setProxy(new HttpHost(config.getProxyHost(), config.getProxyPort()));
+        }
+        asyncClient = clientBuilder.build();
+        asyncClient.start();
+
+        delayedRequests = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Delayed requests");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Fetches the page without blocking. The request is sent as soon as the politeness delay of
+     * its host allows.
+     *
+     * @param webUrl the url to fetch
+     * @return a future which completes with the fetch result, or exceptionally with the same
+     * exceptions {@link #fetchPage(WebURL)} would throw
+     */
+    public CompletableFuture<PageFetchResult> fetchPageAsync(WebURL webUrl) {
+        CompletableFuture<PageFetchResult> future = new CompletableFuture<>();
+        pendingFetches.add(future);
+        future.whenComplete((result, e) -> pendingFetches.remove(future));
+        long waitTime = politenessScheduler.reserve(webUrl.getHost());
+        if (waitTime > 0) {
+            try {
+                ScheduledFuture<?> delayedRequest =
+                        delayedRequests.schedule(() -> execute(webUrl, future), waitTime, TimeUnit.MILLISECONDS);
+                cancelWith(future, delayedRequest);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        } else {
+            execute(webUrl, future);
+        }
+        return future;
+    }
+
+    @Override
+    public PageFetchResult fetchPage(WebURL webUrl)
+            throws InterruptedException, IOException, PageBiggerThanMaxSizeException {
+        return join(fetchPageAsync(webUrl));
+    }
+
+    /**
+     * Waits for an asynchronous fetch and returns its result, throwing the exception of a failed
+     * fetch as {@link #fetchPage(WebURL)} would.
+     */
+    public static PageFetchResult join(Future<PageFetchResult> future)
+            throws InterruptedException, IOException, PageBiggerThanMaxSizeException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof PageBiggerThanMaxSizeException) {
+                throw (PageBiggerThanMaxSizeException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Cancels the task once the future of the fetch is cancelled.
+     */
+    private static void cancelWith(CompletableFuture<PageFetchResult> future, Future<?> task) {
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+    }
+
+    private void execute(WebURL webUrl, CompletableFuture<PageFetchResult> future) {
+        if (future.isDone()) {
+            return; // Cancelled or failed by a shut down while waiting for the politeness delay
+        }
+        String toFetchURL = webUrl.getURL();
+        try {
+            HttpUriRequest request = newHttpUriRequest(toFetchURL);
+            BoundedResponseConsumer consumer =
+                    new BoundedResponseConsumer(config.getMaxDownloadSize() + 1);
+            long start = System.currentTimeMillis();
+            FutureCallback<HttpResponse> callback = new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse response) {
+                    politenessScheduler.onResponse(webUrl.getHost(), response.getStatusLine().getStatusCode(),
+                                                   System.currentTimeMillis() - start, getRetryAfter(response));
+                    PageFetchResult fetchResult = new PageFetchResult(config.isHaltOnError(), chunkPool);
+                    try {
+                        processResponse(fetchResult, toFetchURL, request, response);
+                        if (!future.complete(fetchResult)) {
+                            // Nobody waits for the page anymore
+                            fetchResult.discardContentIfNotConsumed();
+                        }
+                    } catch (PageBiggerThanMaxSizeException | RuntimeException e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    // The consumer closes the connection once the maximum download size is
+                    // reached, the page is then truncated to what has been received
+                    HttpResponse truncatedResponse = consumer.getTruncatedResponse();
+                    if (truncatedResponse != null) {
+                        completed(truncatedResponse);
+                    } else {
+                        politenessScheduler.onFailure(webUrl.getHost(), System.currentTimeMillis() - start);
+                        future.completeExceptionally(e);
+                    }
+                }
+
+                @Override
+                public void cancelled() {
+                    future.cancel(false);
+                }
+            };
+            cancelWith(future, asyncClient.execute(HttpAsyncMethods.create(request), consumer, callback));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public synchronized void shutDown() {
+        delayedRequests.shutdownNow();
+        try {
+            asyncClient.close();
+        } catch (IOException e) {
+            logger.warn("Exception thrown while closing the asynchronous client", e);
+        }
+        // The requests dropped by the shut down would otherwise never complete their fetches
+        IOException shutDown = new IOException("The page fetcher was shut down");
+        for (CompletableFuture<PageFetchResult> future : pendingFetches) {
+            future.completeExceptionally(shutDown);
+        }
+        super.shutDown();
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.fetcher;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.ByteArrayBuffer;
+
+/**
+ * Buffers the response of an asynchronous request in memory, but never more than a given number
+ * of bytes. Once the limit is reached the connection is shut down, and the response received so
+ * far is still available through {@link #getTruncatedResponse()}.
+ */
+class BoundedResponseConsumer extends AbstractAsyncResponseConsumer<HttpResponse> {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final int limit;
+
+    private HttpResponse response;
+    private HttpEntity originalEntity;
+    private ByteArrayBuffer buffer;
+    private ByteBuffer readBuffer;
+    private volatile boolean truncated;
+
+    /**
+     * @param limit maximum number of bytes of the body which are buffered
+     */
+    BoundedResponseConsumer(int limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse httpResponse) {
+        this.response = httpResponse;
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+        originalEntity = entity;
+        long contentLength = entity.getContentLength();
+        int initialCapacity = ((contentLength > 0) && (contentLength < limit)) ? (int) contentLength : 4096;
+        buffer = new ByteArrayBuffer(Math.min(initialCapacity, limit));
+        readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioctrl) throws IOException {
+        int read;
+        while ((read = decoder.read(readBuffer)) > 0) {
+            int length = Math.min(read, limit - buffer.length());
+            buffer.append(readBuffer.array(), 0, length);
+            readBuffer.clear();
+            if (buffer.length() >= limit) {
+                // The rest of the body is of no use, so it is not downloaded at all
+                truncated = true;
+                ioctrl.shutdown();
+                return;
+            }
+        }
+    }
+
+    @Override
+    protected HttpResponse buildResult(HttpContext context) {
+        return bufferedResponse();
+    }
+
+    /**
+     * @return the response with the buffered part of its body if the limit has been reached,
+     * otherwise null
+     */
+    HttpResponse getTruncatedResponse() {
+        return truncated ? bufferedResponse() : null;
+    }
+
+    @Override
+    protected void releaseResources() {
+        readBuffer = null;
+    }
+
+    private HttpResponse bufferedResponse() {
+        if (originalEntity != null) {
+            BasicHttpEntity entity = new BasicHttpEntity();
+            entity.setContent(new ByteArrayInputStream(buffer.buffer(), 0, buffer.length()));
+            // Keeping the announced length, so the maximum download size is checked as for
+            // synchronous requests
+            entity.setContentLength(originalEntity.getContentLength());
+            entity.setContentType(originalEntity.getContentType());
+            entity.setContentEncoding(originalEntity.getContentEncoding());
+            response.setEntity(entity);
+        }
+        return response;
+    }
+}
@@ -27,6 +27,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import edu.uci.ics.crawler4j.crawler.Page;
+import edu.uci.ics.crawler4j.util.ChunkPool;
 
 /**
  * @author Yasser Ganjisaffar
@@ -36,6 +37,7 @@ public class PageFetchResult {
     protected static final Logger logger = LoggerFactory.getLogger(PageFetchResult.class);
 
     private boolean haltOnError;
+    private final ChunkPool chunkPool;
     protected int statusCode;
     protected HttpEntity entity = null;
     protected Header[] responseHeaders = null;
@@ -43,7 +45,16 @@ public class PageFetchResult {
     protected String movedToUrl = null;
 
     public PageFetchResult(boolean haltOnError) {
+        this(haltOnError, null);
+    }
+
+    /**
+     * @param haltOnError whether errors should be thrown instead of logged
+     * @param chunkPool the pool of buffers the content is loaded into, or null to allocate them
+     */
+    public PageFetchResult(boolean haltOnError, ChunkPool chunkPool) {
         this.haltOnError = haltOnError;
+        this.chunkPool = chunkPool;
     }
 
     public int getStatusCode() {
@@ -81,7 +92,7 @@ public class PageFetchResult {
     public boolean fetchContent(Page page, int maxBytes) throws SocketTimeoutException, IOException {
         try {
             page.setFetchResponseHeaders(responseHeaders);
-            page.load(entity, maxBytes);
+            page.load(entity, maxBytes, chunkPool);
             return true;
         } catch (SocketTimeoutException e) {
             throw e;
@@ -30,12 +30,14 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLContext;
 
 import org.apache.http.Header;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.auth.AuthScope;
@@ -43,6 +45,7 @@ import org.apache.http.auth.Credentials;
 import org.apache.http.auth.NTCredentials;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.CookieStore;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
@@ -50,6 +53,7 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.DateUtils;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
@@ -57,6 +61,7 @@ import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.TrustStrategy;
+import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -74,12 +79,18 @@ import edu.uci.ics.crawler4j.crawler.authentication.NtAuthInfo;
 import edu.uci.ics.crawler4j.crawler.exceptions.PageBiggerThanMaxSizeException;
 import edu.uci.ics.crawler4j.url.URLCanonicalizer;
 import edu.uci.ics.crawler4j.url.WebURL;
+import edu.uci.ics.crawler4j.util.ChunkPool;
 
 /**
  * @author Yasser Ganjisaffar
  */
 public class PageFetcher {
     protected static final Logger logger = LoggerFactory.getLogger(PageFetcher.class);
+    /**
+     * @deprecated The politeness delay is applied per host by {@link #getPolitenessScheduler()},
+     * this lock is no longer used by {@link #fetchPage(WebURL)}.
+     */
+    @Deprecated
     protected final Object mutex = new Object();
     /**
      * This field is protected for retro compatibility. Please use the getter method: getConfig() to
@@ -88,11 +99,30 @@ public class PageFetcher {
     protected final CrawlConfig config;
     protected PoolingHttpClientConnectionManager connectionManager;
     protected CloseableHttpClient httpClient;
-    protected long lastFetchTime = 0;
+    /**
+     * @deprecated The politeness delay is applied per host by {@link #getPolitenessScheduler()}.
+     * This field is still set to the time of the last request sent by {@link #fetchPage(WebURL)},
+     * but subclasses which sent their own requests should call
+     * {@code getPolitenessScheduler().acquire(webUrl)} before each of them instead of using it.
+     */
+    @Deprecated
+    protected volatile long lastFetchTime = 0;
+    protected final PolitenessScheduler politenessScheduler;
     protected IdleConnectionMonitorThread connectionMonitorThread = null;
+    protected CookieStore cookieStore;
+    protected CredentialsProvider credentialsProvider = null;
+
+    /**
+     * The pool of buffers the content of pages is loaded into, or null if they are not reused.
+     */
+    protected final ChunkPool chunkPool;
 
     public PageFetcher(CrawlConfig config) throws NoSuchAlgorithmException, KeyManagementException, KeyStoreException {
         this.config = config;
+        this.politenessScheduler = config.isAdaptivePoliteness() ? new AdaptivePolitenessScheduler(config) :
+                                   new PolitenessScheduler(config);
+        this.chunkPool = (config.getContentBufferPoolSize() > 0) ?
+                         new ChunkPool(config.getContentBufferPoolSize()) : null;
 
         RequestConfig requestConfig = RequestConfig.custom()
                 .setExpectContinueEnabled(false)
@@ -134,9 +164,9 @@ public class PageFetcher {
         connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerHost());
 
         HttpClientBuilder clientBuilder = HttpClientBuilder.create();
-        if (config.getCookieStore() != null) {
-            clientBuilder.setDefaultCookieStore(config.getCookieStore());
-        }
+        // Keeping a reference to the cookie store, so cookies of a form login can be shared
+        cookieStore = (config.getCookieStore() != null) ? config.getCookieStore() : new BasicCookieStore();
+        clientBuilder.setDefaultCookieStore(cookieStore);
         clientBuilder.setDefaultRequestConfig(requestConfig);
         clientBuilder.setConnectionManager(connectionManager);
         clientBuilder.setUserAgent(config.getUserAgentString());
@@ -167,7 +197,7 @@ public class PageFetcher {
             }
 
             if (!credentialsMap.isEmpty()) {
-                CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+                credentialsProvider = new BasicCredentialsProvider();
                 credentialsMap.forEach((AuthScope authscope, Credentials credentials) -> {
                     credentialsProvider.setCredentials(authscope, credentials);
                 });
@@ -254,81 +284,135 @@ public class PageFetcher {
     public PageFetchResult fetchPage(WebURL webUrl)
             throws InterruptedException, IOException, PageBiggerThanMaxSizeException {
         // Getting URL, setting headers & content
-        PageFetchResult fetchResult = new PageFetchResult(config.isHaltOnError());
+        PageFetchResult fetchResult = new PageFetchResult(config.isHaltOnError(), chunkPool);
         String toFetchURL = webUrl.getURL();
         HttpUriRequest request = null;
         try {
             request = newHttpUriRequest(toFetchURL);
-            if (config.getPolitenessDelay() > 0) {
-                // Applying Politeness delay
-                synchronized (mutex) {
-                    long now = (new Date()).getTime();
-                    if ((now - lastFetchTime) < config.getPolitenessDelay()) {
-                        Thread.sleep(config.getPolitenessDelay() - (now - lastFetchTime));
-                    }
-                    lastFetchTime = (new Date()).getTime();
-                }
+            // Applying Politeness delay, only requests to the same host have to wait for each other
+            politenessScheduler.acquire(webUrl);
+
+            long start = System.currentTimeMillis();
+            lastFetchTime = start;
+            CloseableHttpResponse response;
+            try {
+                response = httpClient.execute(request);
+            } catch (IOException e) {
+                politenessScheduler.onFailure(webUrl.getHost(), System.currentTimeMillis() - start);
+                throw e;
+            }
+            politenessScheduler.onResponse(webUrl.getHost(), response.getStatusLine().getStatusCode(),
+                                           System.currentTimeMillis() - start, getRetryAfter(response));
+            try {
+                processResponse(fetchResult, toFetchURL, request, response);
+            } catch (PageBiggerThanMaxSizeException e) {
+                //fix issue #52 - consume entity
+                response.close();
+                throw e;
+            }
+            return fetchResult;
+
+        } finally { // occurs also with thrown exceptions
+            if ((fetchResult.getEntity() == null) && (request != null)) {
+                request.abort();
             }
+        }
+    }
 
-            CloseableHttpResponse response = httpClient.execute(request);
-            fetchResult.setEntity(response.getEntity());
-            fetchResult.setResponseHeaders(response.getAllHeaders());
-
-            // Setting HttpStatus
-            int statusCode = response.getStatusLine().getStatusCode();
-
-            // If Redirect ( 3xx )
-            if (statusCode == HttpStatus.SC_MOVED_PERMANENTLY ||
-                    statusCode == HttpStatus.SC_MOVED_TEMPORARILY ||
-                    statusCode == HttpStatus.SC_MULTIPLE_CHOICES ||
-                    statusCode == HttpStatus.SC_SEE_OTHER ||
-                    statusCode == HttpStatus.SC_TEMPORARY_REDIRECT ||
-                    statusCode == 308) { // todo follow
-                // https://issues.apache.org/jira/browse/HTTPCORE-389
-
-                Header header = response.getFirstHeader(HttpHeaders.LOCATION);
-                if (header != null) {
-                    String movedToUrl =
-                            URLCanonicalizer.getCanonicalURL(header.getValue(), toFetchURL);
-                    fetchResult.setMovedToUrl(movedToUrl);
-                }
-            } else if (statusCode >= 200 && statusCode <= 299) { // is 2XX, everything looks ok
-                fetchResult.setFetchedUrl(toFetchURL);
-                String uri = request.getURI().toString();
-                if (!uri.equals(toFetchURL)) {
-                    if (!URLCanonicalizer.getCanonicalURL(uri).equals(toFetchURL)) {
-                        fetchResult.setFetchedUrl(uri);
-                    }
+    /**
+     * Fills the fetch result from the response of the server: the status code, the headers, the
+     * entity and the url the page was fetched from or redirected to.
+     *
+     * @throws PageBiggerThanMaxSizeException if the response announces a page which is bigger
+     * than the maximum download size
+     */
+    protected void processResponse(PageFetchResult fetchResult, String toFetchURL,
+                                   HttpUriRequest request, HttpResponse response)
+            throws PageBiggerThanMaxSizeException {
+        fetchResult.setEntity(response.getEntity());
+        fetchResult.setResponseHeaders(response.getAllHeaders());
+
+        // Setting HttpStatus
+        int statusCode = response.getStatusLine().getStatusCode();
+
+        // If Redirect ( 3xx )
+        if (statusCode == HttpStatus.SC_MOVED_PERMANENTLY ||
+                statusCode == HttpStatus.SC_MOVED_TEMPORARILY ||
+                statusCode == HttpStatus.SC_MULTIPLE_CHOICES ||
+                statusCode == HttpStatus.SC_SEE_OTHER ||
+                statusCode == HttpStatus.SC_TEMPORARY_REDIRECT ||
+                statusCode == 308) { // todo follow
+            // https://issues.apache.org/jira/browse/HTTPCORE-389
+
+            Header header = response.getFirstHeader(HttpHeaders.LOCATION);
+            if (header != null) {
+                String movedToUrl =
+                        URLCanonicalizer.getCanonicalURL(header.getValue(), toFetchURL);
+                fetchResult.setMovedToUrl(movedToUrl);
+            }
+        } else if (statusCode >= 200 && statusCode <= 299) { // is 2XX, everything looks ok
+            fetchResult.setFetchedUrl(toFetchURL);
+            String uri = request.getURI().toString();
+            if (!uri.equals(toFetchURL)) {
+                if (!URLCanonicalizer.getCanonicalURL(uri).equals(toFetchURL)) {
+                    fetchResult.setFetchedUrl(uri);
                 }
+            }
 
-                // Checking maximum size
-                if (fetchResult.getEntity() != null) {
-                    long size = fetchResult.getEntity().getContentLength();
-                    if (size == -1) {
-                        Header length = response.getLastHeader(HttpHeaders.CONTENT_LENGTH);
-                        if (length == null) {
-                            length = response.getLastHeader("Content-length");
-                        }
-                        if (length != null) {
-                            size = Integer.parseInt(length.getValue());
-                        }
+            // Checking maximum size
+            if (fetchResult.getEntity() != null) {
+                long size = fetchResult.getEntity().getContentLength();
+                if (size == -1) {
+                    Header length = response.getLastHeader(HttpHeaders.CONTENT_LENGTH);
+                    if (length == null) {
+                        length = response.getLastHeader("Content-length");
                     }
-                    if (size > config.getMaxDownloadSize()) {
-                        //fix issue #52 - consume entity
-                        response.close();
-                        throw new PageBiggerThanMaxSizeException(size);
+                    if (length != null) {
+                        size = Integer.parseInt(length.getValue());
                     }
                 }
+                if (size > config.getMaxDownloadSize()) {
+                    throw new PageBiggerThanMaxSizeException(size);
+                }
             }
+        }
 
-            fetchResult.setStatusCode(statusCode);
-            return fetchResult;
+        fetchResult.setStatusCode(statusCode);
+    }
 
-        } finally { // occurs also with thrown exceptions
-            if ((fetchResult.getEntity() == null) && (request != null)) {
-                request.abort();
+    /**
+     * @return the number of milliseconds the "Retry-After" header of the response asks to wait
+     * before the next request, given in seconds or as a date, or 0 if it has none
+     */
+    protected static long getRetryAfter(HttpResponse response) {
+        return getRetryAfter(response.getHeaders(HttpHeaders.RETRY_AFTER));
+    }
+
+    /**
+     * @param headers the headers of a response
+     * @return the number of milliseconds the first "Retry-After" header asks to wait before the
+     * next request, given in seconds or as a date, or 0 if there is none
+     */
+    public static long getRetryAfter(Header[] headers) {
+        Header header = null;
+        if (headers != null) {
+            for (Header candidate : headers) {
+                if (HttpHeaders.RETRY_AFTER.equalsIgnoreCase(candidate.getName())) {
+                    header = candidate;
+                    break;
+                }
             }
         }
+        if (header == null) {
+            return 0;
+        }
+        String value = header.getValue().trim();
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(value);
+            return (date == null) ? 0 : Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
     }
 
     public synchronized void shutDown() {
@@ -352,4 +436,12 @@ public class PageFetcher {
     protected CrawlConfig getConfig() {
         return config;
     }
+
+    /**
+     * @return the scheduler applying the politeness delay per host. Subclasses sending their own
+     * requests call its {@link PolitenessScheduler#acquire(WebURL)} before each of them.
+     */
+    public PolitenessScheduler getPolitenessScheduler() {
+        return politenessScheduler;
+    }
 }
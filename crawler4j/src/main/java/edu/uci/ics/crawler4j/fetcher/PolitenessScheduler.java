@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.fetcher;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.url.WebURL;
+
+/**
+ * Applies the politeness delay per host. For each host it remembers the earliest time at which
+ * the next request may be sent, so threads only ever wait for requests to their own host and
+ * the overall throughput grows with the number of hosts being crawled.
+ */
+public class PolitenessScheduler {
+
+    /**
+     * Once this many hosts are tracked, hosts whose next fetch time has already passed are
+     * forgotten, as they would not delay a request anymore anyway.
+     */
+    private static final int PURGE_THRESHOLD = 10000;
+    private static final long PURGE_INTERVAL = 1000;
+
+    protected final CrawlConfig config;
+
+    private final ConcurrentMap<String, Long> nextFetchTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Delays in milliseconds of the hosts asking in their robots.txt for a longer delay than the
+     * politeness delay.
+     */
+    private final ConcurrentMap<String, Long> crawlDelays = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurgeTime = new AtomicLong();
+
+    public PolitenessScheduler(CrawlConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Blocks the calling thread until a request to the host of the given url is allowed.
+     *
+     * @param webUrl the url which is about to be fetched
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire(WebURL webUrl) throws InterruptedException {
+        long waitTime = reserve(webUrl.getHost());
+        if (waitTime > 0) {
+            Thread.sleep(waitTime);
+        }
+    }
+
+    /**
+     * Reserves the next free fetch slot of the given host without blocking.
+     *
+     * @param host the host which is about to be fetched
+     * @return the number of milliseconds the caller has to wait before sending its request
+     */
+    public long reserve(String host) {
+        long delay = getDelay(host);
+        long now = System.currentTimeMillis();
+        if (delay <= 0) {
+            // There is no slot to reserve, but the host may have been held back until some time
+            Long next = nextFetchTimes.get(host);
+            return (next == null) ? 0 : Math.max(0, next - now);
+        }
+        purgeIfNeeded(now);
+        long next = nextFetchTimes.merge(host, now + delay,
+            (previous, ignored) -> Math.max(previous, now) + delay);
+        return next - delay - now;
+    }
+
+    /**
+     * @param host the host name
+     * @return the earliest time (in milliseconds) at which the host may be fetched again, which
+     * is in the past if it may be fetched right away
+     */
+    public long getNextFetchTime(String host) {
+        Long next = nextFetchTimes.get(host);
+        return next == null ? 0 : next;
+    }
+
+    /**
+     * Returns the delay in milliseconds between two requests to the given host. Subclasses can
+     * override this to apply a different delay for some hosts.
+     *
+     * @param host the host name
+     * @return the politeness delay for the host
+     */
+    public long getDelay(String host) {
+        return Math.max(config.getPolitenessDelay(), getCrawlDelay(host));
+    }
+
+    /**
+     * @param host the host name
+     * @return the delay in milliseconds the host asks for in its robots.txt, if it is longer than
+     * the politeness delay, or 0
+     */
+    protected long getCrawlDelay(String host) {
+        Long crawlDelay = crawlDelays.get(host);
+        return (crawlDelay == null) ? 0 : crawlDelay;
+    }
+
+    /**
+     * Sets the delay a host asks for with the "Crawl-delay" of its robots.txt. It is capped to
+     * {@link CrawlConfig#getMaxCrawlDelay()}, and only applied if it is longer than the politeness
+     * delay.
+     *
+     * @param host the host name
+     * @param crawlDelay the delay in milliseconds, 0 if the host does not ask for one
+     */
+    public void setCrawlDelay(String host, long crawlDelay) {
+        long delay = Math.min(crawlDelay, config.getMaxCrawlDelay());
+        if (delay > config.getPolitenessDelay()) {
+            crawlDelays.put(host, delay);
+        } else {
+            crawlDelays.remove(host);
+        }
+    }
+
+    /**
+     * Called by the page fetcher once the response headers of a request are received. The default
+     * does nothing, subclasses can override this to adapt the delay of the host to how it answers.
+     *
+     * @param host the host name
+     * @param statusCode the status code of the response
+     * @param latency the number of milliseconds between sending the request and the response
+     * @param retryAfter the number of milliseconds the "Retry-After" header of the response asks
+     *                   to wait before the next request, or 0
+     */
+    public void onResponse(String host, int statusCode, long latency, long retryAfter) {
+        // Nothing to adapt
+    }
+
+    /**
+     * Called by the page fetcher when a request failed without a response, for example because of
+     * a timeout. The default does nothing.
+     *
+     * @param host the host name
+     * @param latency the number of milliseconds between sending the request and its failure
+     */
+    public void onFailure(String host, long latency) {
+        // Nothing to adapt
+    }
+
+    /**
+     * Makes the next request to the host wait at least until the given time.
+     *
+     * @param host the host name
+     * @param time the time in milliseconds
+     */
+    protected void delayUntil(String host, long time) {
+        nextFetchTimes.merge(host, time, Math::max);
+    }
+
+    private void purgeIfNeeded(long now) {
+        if (nextFetchTimes.size() < PURGE_THRESHOLD) {
+            return;
+        }
+        long lastPurge = lastPurgeTime.get();
+        if ((now - lastPurge) > PURGE_INTERVAL && lastPurgeTime.compareAndSet(lastPurge, now)) {
+            nextFetchTimes.values().removeIf(next -> next < now);
+        }
+    }
+}
@@ -19,6 +19,7 @@ package edu.uci.ics.crawler4j.frontier;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,7 +52,7 @@ public class Counters {
     protected Environment env;
     private CrawlConfig config;
 
-    protected final Object mutex = new Object();
+    protected final ReentrantLock mutex = new ReentrantLock();
 
     protected Map<String, Long> counterValues;
 
@@ -93,32 +94,36 @@ public class Counters {
     }
 
     public long getValue(String name) {
-        synchronized (mutex) {
+        mutex.lock();
+        try {
             Long value = counterValues.get(name);
             if (value == null) {
                 return 0;
             }
             return value;
+        } finally {
+            mutex.unlock();
         }
     }
 
     public void setValue(String name, long value) {
-        synchronized (mutex) {
-            try {
-                counterValues.put(name, value);
-                if (statisticsDB != null) {
-                    Transaction txn = env.beginTransaction(null, null);
-                    statisticsDB.put(txn, new DatabaseEntry(name.getBytes()),
-                                     new DatabaseEntry(Util.long2ByteArray(value)));
-                    txn.commit();
-                }
-            } catch (RuntimeException e) {
-                if (config.isHaltOnError()) {
-                    throw e;
-                } else {
-                    logger.error("Exception setting value", e);
-                }
+        mutex.lock();
+        try {
+            counterValues.put(name, value);
+            if (statisticsDB != null) {
+                Transaction txn = env.beginTransaction(null, null);
+                statisticsDB.put(txn, new DatabaseEntry(name.getBytes()),
+                                 new DatabaseEntry(Util.long2ByteArray(value)));
+                txn.commit();
+            }
+        } catch (RuntimeException e) {
+            if (config.isHaltOnError()) {
+                throw e;
+            } else {
+                logger.error("Exception setting value", e);
             }
+        } finally {
+            mutex.unlock();
         }
     }
 
@@ -127,9 +132,12 @@ public class Counters {
     }
 
     public void increment(String name, long addition) {
-        synchronized (mutex) {
+        mutex.lock();
+        try {
             long prevValue = getValue(name);
             setValue(name, prevValue + addition);
+        } finally {
+            mutex.unlock();
         }
     }
 
@@ -17,17 +17,34 @@
 
 package edu.uci.ics.crawler4j.frontier;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.sleepycat.je.Cursor;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseConfig;
 import com.sleepycat.je.DatabaseEntry;
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.Environment;
 import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.Transaction;
 
 import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.url.WebURL;
+import edu.uci.ics.crawler4j.util.ScalableBloomFilter;
 import edu.uci.ics.crawler4j.util.Util;
 
 /**
@@ -37,15 +54,26 @@ import edu.uci.ics.crawler4j.util.Util;
 public class DocIDServer {
     private static final Logger logger = LoggerFactory.getLogger(DocIDServer.class);
 
-    private final Database docIDsDB;
+    protected final Database docIDsDB;
     private static final String DATABASE_NAME = "DocIDs";
+    private static final String BLOOM_FILTER_FILE_NAME = "DocIDs.bloom";
 
-    private final Object mutex = new Object();
+    private final ReentrantLock mutex = new ReentrantLock();
 
-    private CrawlConfig config;
+    protected CrawlConfig config;
     private int lastDocID;
 
+    /**
+     * Filter of all the URLs in the docid database, which answers most lookups of URLs that
+     * have not been seen before without reading the database. It is null if it is disabled.
+     */
+    private final ScalableBloomFilter seenUrls;
+
     public DocIDServer(Environment env, CrawlConfig config) {
+        this(env, config, config.isDocIdBloomFilter());
+    }
+
+    protected DocIDServer(Environment env, CrawlConfig config, boolean useBloomFilter) {
         this.config = config;
         DatabaseConfig dbConfig = new DatabaseConfig();
         dbConfig.setAllowCreate(true);
@@ -54,12 +82,13 @@ public class DocIDServer {
         lastDocID = 0;
         docIDsDB = env.openDatabase(null, DATABASE_NAME, dbConfig);
         if (config.isResumableCrawling()) {
-            int docCount = getDocCount();
+            int docCount = getStoredDocCount();
             if (docCount > 0) {
                 logger.info("Loaded {} URLs that had been detected in previous crawl.", docCount);
                 lastDocID = docCount;
             }
         }
+        seenUrls = useBloomFilter ? loadBloomFilter() : null;
     }
 
     /**
@@ -69,12 +98,20 @@ public class DocIDServer {
      * @return the docid of the url if it is seen before. Otherwise -1 is returned.
      */
     public int getDocId(String url) {
-        synchronized (mutex) {
+        return getDocId(null, url);
+    }
+
+    private int getDocId(Transaction txn, String url) {
+        mutex.lock();
+        try {
+            if ((seenUrls != null) && !seenUrls.mightContain(url)) {
+                return -1;
+            }
             OperationStatus result = null;
             DatabaseEntry value = new DatabaseEntry();
             try {
                 DatabaseEntry key = new DatabaseEntry(url.getBytes());
-                result = docIDsDB.get(null, key, value, null);
+                result = docIDsDB.get(txn, key, value, null);
 
             } catch (RuntimeException e) {
                 if (config.isHaltOnError()) {
@@ -90,35 +127,107 @@ public class DocIDServer {
             }
 
             return -1;
+        } finally {
+            mutex.unlock();
         }
     }
 
     public int getNewDocID(String url) {
-        synchronized (mutex) {
+        mutex.lock();
+        try {
+            // Make sure that we have not already assigned a docid for this URL
+            int docID = getDocId(url);
+            if (docID > 0) {
+                return docID;
+            }
+
+            ++lastDocID;
+            docIDsDB.put(null, new DatabaseEntry(url.getBytes()),
+                         new DatabaseEntry(Util.int2ByteArray(lastDocID)));
+            addToBloomFilter(url);
+            return lastDocID;
+        } catch (RuntimeException e) {
+            if (config.isHaltOnError()) {
+                throw e;
+            } else {
+                logger.error("Exception thrown while getting new DocID", e);
+                return -1;
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Looks up the docids of all the given urls at once. The docid of each url is set to its
+     * docid if it is seen before, otherwise to -1.
+     *
+     * @param urls the urls to look up
+     */
+    public void resolveAll(Collection<WebURL> urls) {
+        mutex.lock();
+        try {
+            for (WebURL url : urls) {
+                url.setDocid(getDocId(null, url.getURL()));
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Assigns new docids to all the given urls which have not been seen before, in a single
+     * transaction. Urls which already have a docid, for example because they appear twice in
+     * the given collection, get their existing docid.
+     *
+     * @param urls the urls to assign docids to
+     * @return the urls which got a new docid
+     */
+    public List<WebURL> assignAll(Collection<WebURL> urls) {
+        mutex.lock();
+        try {
+            List<WebURL> assigned = new ArrayList<>(urls.size());
+            int previousLastDocID = lastDocID;
+            Transaction txn = beginTransaction();
             try {
-                // Make sure that we have not already assigned a docid for this URL
-                int docID = getDocId(url);
-                if (docID > 0) {
-                    return docID;
-                }
+                for (WebURL url : urls) {
+                    int docID = getDocId(txn, url.getURL());
+                    if (docID > 0) {
+                        url.setDocid(docID);
+                        continue;
+                    }
 
-                ++lastDocID;
-                docIDsDB.put(null, new DatabaseEntry(url.getBytes()),
-                             new DatabaseEntry(Util.int2ByteArray(lastDocID)));
-                return lastDocID;
+                    ++lastDocID;
+                    docIDsDB.put(txn, new DatabaseEntry(url.getURL().getBytes()),
+                                 new DatabaseEntry(Util.int2ByteArray(lastDocID)));
+                    addToBloomFilter(url.getURL());
+                    url.setDocid(lastDocID);
+                    assigned.add(url);
+                }
+                if (txn != null) {
+                    txn.commit();
+                }
             } catch (RuntimeException e) {
+                if (txn != null) {
+                    txn.abort();
+                    lastDocID = previousLastDocID;
+                    assigned.clear();
+                }
                 if (config.isHaltOnError()) {
                     throw e;
                 } else {
-                    logger.error("Exception thrown while getting new DocID", e);
-                    return -1;
+                    logger.error("Exception thrown while assigning new DocIDs", e);
                 }
             }
+            return assigned;
+        } finally {
+            mutex.unlock();
         }
     }
 
     public void addUrlAndDocId(String url, int docId) {
-        synchronized (mutex) {
+        mutex.lock();
+        try {
             if (docId <= lastDocID) {
                 throw new IllegalArgumentException(
                     "Requested doc id: " + docId + " is not larger than: " + lastDocID);
@@ -135,15 +244,26 @@ public class DocIDServer {
 
             docIDsDB.put(null, new DatabaseEntry(url.getBytes()),
                          new DatabaseEntry(Util.int2ByteArray(docId)));
+            addToBloomFilter(url);
             lastDocID = docId;
+        } finally {
+            mutex.unlock();
         }
     }
 
+    protected Transaction beginTransaction() {
+        return config.isResumableCrawling() ? docIDsDB.getEnvironment().beginTransaction(null, null) : null;
+    }
+
     public boolean isSeenBefore(String url) {
         return getDocId(url) != -1;
     }
 
-    public final int getDocCount() {
+    public int getDocCount() {
+        return getStoredDocCount();
+    }
+
+    private int getStoredDocCount() {
         try {
             return (int) docIDsDB.count();
         } catch (DatabaseException e) {
@@ -152,7 +272,74 @@ public class DocIDServer {
         }
     }
 
+    private void addToBloomFilter(String url) {
+        if (seenUrls != null) {
+            seenUrls.put(url);
+        }
+    }
+
+    private File getBloomFilterFile() {
+        return new File(docIDsDB.getEnvironment().getHome(), BLOOM_FILTER_FILE_NAME);
+    }
+
+    /**
+     * Loads the filter which was saved when the previous crawl was closed. The file is deleted
+     * after loading, so if this crawl is not closed properly the next one does not use an
+     * outdated filter, but rebuilds it from the database.
+     */
+    private ScalableBloomFilter loadBloomFilter() {
+        int docCount = getStoredDocCount();
+        File file = getBloomFilterFile();
+        if (config.isResumableCrawling() && file.exists()) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                ScalableBloomFilter filter = ScalableBloomFilter.readFrom(in);
+                if (filter.getCount() == docCount) {
+                    logger.info("Loaded bloom filter of {} URLs", docCount);
+                    return filter;
+                }
+                logger.warn("Bloom filter does not match the docid database, rebuilding it");
+            } catch (IOException e) {
+                logger.warn("Could not read bloom filter, rebuilding it: {}", e.getMessage());
+            } finally {
+                if (!file.delete()) {
+                    logger.warn("Could not delete bloom filter file: {}", file.getAbsolutePath());
+                }
+            }
+        }
+
+        ScalableBloomFilter filter = new ScalableBloomFilter(
+            Math.max(config.getDocIdBloomFilterInitialSize(), docCount),
+            config.getDocIdBloomFilterFalsePositiveRate());
+        if (docCount > 0) {
+            DatabaseEntry key = new DatabaseEntry();
+            DatabaseEntry value = new DatabaseEntry();
+            value.setPartial(0, 0, true);
+            try (Cursor cursor = docIDsDB.openCursor(null, null)) {
+                while (cursor.getNext(key, value, null) == OperationStatus.SUCCESS) {
+                    filter.put(new String(key.getData()));
+                }
+            }
+            logger.info("Rebuilt bloom filter of {} URLs", docCount);
+        }
+        return filter;
+    }
+
+    private void saveBloomFilter() {
+        File file = getBloomFilterFile();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            seenUrls.writeTo(out);
+        } catch (IOException e) {
+            logger.error("Exception thrown while saving bloom filter", e);
+            if (file.exists() && !file.delete()) {
+                logger.warn("Could not delete bloom filter file: {}", file.getAbsolutePath());
+            }
+        }
+    }
+
     public void close() {
+        if ((seenUrls != null) && config.isResumableCrawling()) {
+            saveBloomFilter();
+        }
         try {
             docIDsDB.close();
         } catch (DatabaseException e) {
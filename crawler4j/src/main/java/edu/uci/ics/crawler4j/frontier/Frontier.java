@@ -17,7 +17,15 @@
 
 package edu.uci.ics.crawler4j.frontier;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,26 +44,52 @@ public class Frontier {
     protected static final Logger logger = LoggerFactory.getLogger(Frontier.class);
 
     private static final String DATABASE_NAME = "PendingURLsDB";
+    private static final String RETRY_DATABASE_NAME = "RetryURLsDB";
     private static final int IN_PROCESS_RESCHEDULE_BATCH_SIZE = 100;
     private final CrawlConfig config;
     protected WorkQueues workQueues;
 
     protected InProcessPagesDB inProcessPages;
 
-    protected final Object mutex = new Object();
-    protected final Object waitingList = new Object();
+    /**
+     * URLs whose fetch failed, waiting for the time they may be fetched again at.
+     */
+    protected RetryQueues retryQueues;
 
-    protected boolean isFinished = false;
+    protected final ReentrantLock mutex = new ReentrantLock();
+    protected final Condition waitingList = mutex.newCondition();
+
+    protected volatile boolean isFinished = false;
 
     protected long scheduledPages;
 
     protected Counters counters;
 
+    /**
+     * URLs waiting for the robots.txt of their host to be fetched before being scheduled, by
+     * host. They are kept in memory only, so a resumed crawl does not have them.
+     */
+    protected final Map<String, List<WebURL>> parkedURLs = new HashMap<>();
+
+    /**
+     * The number of parked URLs, including the ones released but not scheduled yet.
+     */
+    protected long parkedCount;
+
     public Frontier(Environment env, CrawlConfig config) {
+        this(env, config, new WorkQueues(env, DATABASE_NAME, config.isResumableCrawling()));
+    }
+
+    /**
+     * Creates a frontier which keeps the pending URLs in the given work queues. Subclasses use
+     * this to provide a differently organized queue.
+     */
+    protected Frontier(Environment env, CrawlConfig config, WorkQueues workQueues) {
         this.config = config;
         this.counters = new Counters(env, config);
+        this.workQueues = workQueues;
         try {
-            workQueues = new WorkQueues(env, DATABASE_NAME, config.isResumableCrawling());
+            retryQueues = new RetryQueues(env, RETRY_DATABASE_NAME, config.isResumableCrawling());
             if (config.isResumableCrawling()) {
                 scheduledPages = counters.getValue(Counters.ReservedCounterNames.SCHEDULED_PAGES);
                 inProcessPages = new InProcessPagesDB(env);
@@ -84,7 +118,8 @@ public class Frontier {
 
     public void scheduleAll(List<WebURL> urls) {
         int maxPagesToFetch = config.getMaxPagesToFetch();
-        synchronized (mutex) {
+        mutex.lock();
+        try {
             int newScheduledPage = 0;
             for (WebURL url : urls) {
                 if ((maxPagesToFetch > 0) &&
@@ -103,42 +138,129 @@ public class Frontier {
                 scheduledPages += newScheduledPage;
                 counters.increment(Counters.ReservedCounterNames.SCHEDULED_PAGES, newScheduledPage);
             }
-            synchronized (waitingList) {
-                waitingList.notifyAll();
-            }
+            waitingList.signalAll();
+        } finally {
+            mutex.unlock();
         }
     }
 
     public void schedule(WebURL url) {
         int maxPagesToFetch = config.getMaxPagesToFetch();
-        synchronized (mutex) {
-            try {
-                if (maxPagesToFetch < 0 || scheduledPages < maxPagesToFetch) {
-                    workQueues.put(url);
-                    scheduledPages++;
-                    counters.increment(Counters.ReservedCounterNames.SCHEDULED_PAGES);
-                }
-            } catch (DatabaseException e) {
-                logger.error("Error while putting the url in the work queue", e);
+        mutex.lock();
+        try {
+            if (maxPagesToFetch < 0 || scheduledPages < maxPagesToFetch) {
+                workQueues.put(url);
+                scheduledPages++;
+                counters.increment(Counters.ReservedCounterNames.SCHEDULED_PAGES);
             }
+        } catch (DatabaseException e) {
+            logger.error("Error while putting the url in the work queue", e);
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Parks URLs until the robots.txt of their host is fetched, when they are released with
+     * {@link #unpark(String)} and {@link #scheduleUnparked(List, int)}.
+     */
+    public void park(String host, Collection<WebURL> urls) {
+        mutex.lock();
+        try {
+            parkedURLs.computeIfAbsent(host, key -> new ArrayList<>()).addAll(urls);
+            parkedCount += urls.size();
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Takes the URLs parked for a host. They are still counted as parked until they are passed to
+     * {@link #scheduleUnparked(List, int)}, so the crawl does not look finished in between.
+     *
+     * @return the URLs parked for the host, if any
+     */
+    public List<WebURL> unpark(String host) {
+        mutex.lock();
+        try {
+            List<WebURL> urls = parkedURLs.remove(host);
+            return (urls == null) ? Collections.emptyList() : urls;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Schedules the URLs allowed among the ones taken from {@link #unpark(String)}, and stops
+     * counting all of the taken ones as parked.
+     *
+     * @param urls the URLs to schedule
+     * @param numUnparked the number of URLs which were taken, allowed or not
+     */
+    public void scheduleUnparked(List<WebURL> urls, int numUnparked) {
+        mutex.lock();
+        try {
+            scheduleAll(urls);
+        } finally {
+            parkedCount -= numUnparked;
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Schedules a URL whose fetch failed to be fetched again once its
+     * {@link WebURL#getNotBefore()} time has come. It is not counted as a newly scheduled page,
+     * nor as a processed one, and it stops being in process in the same transaction.
+     *
+     * @return {@code true} if the URL was scheduled, {@code false} if it could not be stored
+     */
+    public boolean scheduleRetry(WebURL url) {
+        mutex.lock();
+        try {
+            retryQueues.put(url, inProcessPages);
+            // Waiting threads have to wait until this retry at most
+            waitingList.signalAll();
+            return true;
+        } catch (DatabaseException e) {
+            logger.error("Error while putting the url in the retry queue", e);
+            return false;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Moves the URLs whose retry time has come to the work queues, in a single transaction so none
+     * of them is lost if moving them fails.
+     */
+    protected void moveDueRetries() {
+        try {
+            retryQueues.pollDue(System.currentTimeMillis(), Integer.MAX_VALUE, workQueues);
+        } catch (DatabaseException e) {
+            logger.error("Error while moving the urls to retry to the work queue", e);
+        }
+    }
+
+    /**
+     * @return the earliest time (in milliseconds) at which a URL to retry may be fetched, or
+     * {@link Long#MAX_VALUE} if there are none
+     */
+    protected long getNextRetryTime() {
+        try {
+            return retryQueues.getNextRetryTime();
+        } catch (DatabaseException e) {
+            logger.error("Error while reading the retry queue", e);
+            return Long.MAX_VALUE;
         }
     }
 
     public void getNextURLs(int max, List<WebURL> result) {
-        while (true) {
-            synchronized (mutex) {
-                if (isFinished) {
-                    return;
-                }
+        mutex.lock();
+        try {
+            while (!isFinished) {
+                moveDueRetries();
                 try {
-                    List<WebURL> curResults = workQueues.get(max);
-                    workQueues.delete(curResults.size());
-                    if (inProcessPages != null) {
-                        for (WebURL curPage : curResults) {
-                            inProcessPages.put(curPage);
-                        }
-                    }
-                    result.addAll(curResults);
+                    result.addAll(workQueues.pollBatch(max, inProcessPages));
                 } catch (DatabaseException e) {
                     logger.error("Error while getting next urls", e);
                 }
@@ -146,18 +268,21 @@ public class Frontier {
                 if (result.size() > 0) {
                     return;
                 }
-            }
 
-            try {
-                synchronized (waitingList) {
-                    waitingList.wait();
+                long nextRetryTime = getNextRetryTime();
+                try {
+                    if (nextRetryTime == Long.MAX_VALUE) {
+                        waitingList.await();
+                    } else {
+                        waitingList.await(Math.max(1, nextRetryTime - System.currentTimeMillis()),
+                                          TimeUnit.MILLISECONDS);
+                    }
+                } catch (InterruptedException ignored) {
+                    // Do nothing
                 }
-            } catch (InterruptedException ignored) {
-                // Do nothing
-            }
-            if (isFinished) {
-                return;
             }
+        } finally {
+            mutex.unlock();
         }
     }
 
@@ -170,8 +295,20 @@ public class Frontier {
         }
     }
 
+    /**
+     * @return the number of URLs waiting to be fetched, including the ones waiting to be retried
+     */
     public long getQueueLength() {
-        return workQueues.getLength();
+        return workQueues.getLength() + retryQueues.getLength();
+    }
+
+    public long getNumberOfParkedURLs() {
+        mutex.lock();
+        try {
+            return parkedCount;
+        } finally {
+            mutex.unlock();
+        }
     }
 
     public long getNumberOfAssignedPages() {
@@ -196,6 +333,7 @@ public class Frontier {
 
     public void close() {
         workQueues.close();
+        retryQueues.close();
         counters.close();
         if (inProcessPages != null) {
             inProcessPages.close();
@@ -203,9 +341,12 @@ public class Frontier {
     }
 
     public void finish() {
-        isFinished = true;
-        synchronized (waitingList) {
-            waitingList.notifyAll();
+        mutex.lock();
+        try {
+            isFinished = true;
+            waitingList.signalAll();
+        } finally {
+            mutex.unlock();
         }
     }
 }
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.frontier;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.Environment;
+
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.fetcher.PolitenessScheduler;
+import edu.uci.ics.crawler4j.url.WebURL;
+
+/**
+ * A {@link Frontier} which keeps one queue per host and only hands out URLs of hosts whose
+ * politeness delay has passed. A burst of links to a single host therefore no longer keeps all
+ * crawler threads waiting for that host, instead the threads work on different hosts.
+ */
+public class HostPartitionedFrontier extends Frontier {
+
+    private static final String DATABASE_NAME = "HostPendingURLsDB";
+
+    protected final HostQueues hostQueues;
+
+    public HostPartitionedFrontier(Environment env, CrawlConfig config,
+                                   PolitenessScheduler politenessScheduler) {
+        this(env, config, new HostQueues(env, DATABASE_NAME, config.isResumableCrawling(),
+                                         politenessScheduler));
+    }
+
+    private HostPartitionedFrontier(Environment env, CrawlConfig config, HostQueues hostQueues) {
+        super(env, config, hostQueues);
+        this.hostQueues = hostQueues;
+    }
+
+    @Override
+    public void getNextURLs(int max, List<WebURL> result) {
+        mutex.lock();
+        try {
+            while (!isFinished) {
+                moveDueRetries();
+                try {
+                    result.addAll(hostQueues.pollBatch(max, inProcessPages));
+                } catch (DatabaseException e) {
+                    logger.error("Error while getting next urls", e);
+                }
+
+                if (result.size() > 0) {
+                    return;
+                }
+
+                long nextReadyTime = Math.min(hostQueues.getNextReadyTime(), getNextRetryTime());
+                try {
+                    if (nextReadyTime == Long.MAX_VALUE) {
+                        waitingList.await();
+                    } else {
+                        waitingList.await(Math.max(1, nextReadyTime - System.currentTimeMillis()),
+                                          TimeUnit.MILLISECONDS);
+                    }
+                } catch (InterruptedException ignored) {
+                    // Do nothing
+                }
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * @return number of hosts which currently have URLs waiting in the frontier
+     */
+    public int getNumberOfQueuedHosts() {
+        return hostQueues.getNumberOfHosts();
+    }
+}
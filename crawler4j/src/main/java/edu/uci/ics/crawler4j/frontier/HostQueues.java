@@ -0,0 +1,373 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.frontier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import com.sleepycat.je.Cursor;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.Transaction;
+
+import edu.uci.ics.crawler4j.fetcher.PolitenessScheduler;
+import edu.uci.ics.crawler4j.url.WebURL;
+
+/**
+ * Work queues which keep a separate queue for every host. All URLs are stored in a single
+ * database, but their keys are prefixed with the host so the URLs of one host are stored next
+ * to each other. In memory, the hosts which have pending URLs are kept in a heap ordered by the
+ * time at which they may be fetched again, so {@link #pollBatch(int, WorkQueues)} only hands out URLs of hosts
+ * which are currently eligible, at most one per host.
+ */
+public class HostQueues extends WorkQueues {
+
+    private final PolitenessScheduler politenessScheduler;
+
+    private final PriorityQueue<ReadyHost> readyHosts = new PriorityQueue<>();
+    private final Set<String> queuedHosts = new HashSet<>();
+
+    public HostQueues(Environment env, String dbName, boolean resumable,
+                      PolitenessScheduler politenessScheduler) {
+        super(env, dbName, resumable);
+        this.politenessScheduler = politenessScheduler;
+        loadHosts();
+    }
+
+    /**
+     * Takes the next URL of up to {@code max} hosts which may currently be fetched and removes
+     * them from the queue. If {@code moveTo} is given, the URLs are put in it within the same
+     * transaction.
+     *
+     * @param max maximum number of URLs to return
+     * @param moveTo work queues which receive the returned URLs, or null
+     * @return the URLs, which all belong to different hosts
+     */
+    @Override
+    public List<WebURL> pollBatch(int max, WorkQueues moveTo) {
+        mutex.lock();
+        try {
+            List<WebURL> results = new ArrayList<>(max);
+            List<ReadyHost> requeued = new ArrayList<>();
+            List<ReadyHost> emptied = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            DatabaseEntry key = new DatabaseEntry();
+            DatabaseEntry value = new DatabaseEntry();
+            ReadyHost pollingHost = null;
+            Transaction txn = beginTransaction();
+            try {
+                try (Cursor cursor = openCursor(txn)) {
+                    while ((results.size() < max) && !readyHosts.isEmpty() &&
+                           (readyHosts.peek().readyTime <= now)) {
+                        ReadyHost readyHost = readyHosts.poll();
+                        pollingHost = readyHost;
+                        byte[] prefix = getHostPrefix(readyHost.host);
+                        key.setData(prefix);
+                        OperationStatus result = cursor.getSearchKeyRange(key, value, null);
+                        if ((result == OperationStatus.SUCCESS) && startsWith(key.getData(), prefix)) {
+                            WebURL url = webURLBinding.entryToObject(value);
+                            results.add(url);
+                            if (moveTo != null) {
+                                moveTo.put(txn, getDatabaseEntryKey(url), value);
+                            }
+                            cursor.delete();
+                            result = cursor.getNext(key, value, null);
+                        }
+                        if ((result == OperationStatus.SUCCESS) && startsWith(key.getData(), prefix)) {
+                            // The host may also have been held back further, by a "Retry-After"
+                            readyHost.readyTime = Math.max(politenessScheduler.getNextFetchTime(readyHost.host),
+                                                           now + politenessScheduler.getDelay(readyHost.host));
+                            requeued.add(readyHost);
+                        } else {
+                            emptied.add(readyHost);
+                        }
+                        pollingHost = null;
+                    }
+                }
+                commit(txn);
+            } catch (RuntimeException e) {
+                abort(txn);
+                // Nothing was removed, so all the hosts still have their URLs, including the one
+                // which was being polled
+                requeued.addAll(emptied);
+                if (pollingHost != null) {
+                    requeued.add(pollingHost);
+                }
+                for (ReadyHost readyHost : requeued) {
+                    readyHost.readyTime = now;
+                }
+                readyHosts.addAll(requeued);
+                throw e;
+            }
+            readyHosts.addAll(requeued);
+            for (ReadyHost readyHost : emptied) {
+                queuedHosts.remove(readyHost.host);
+            }
+            return results;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * @return the earliest time (in milliseconds) at which one of the queued hosts may be fetched,
+     * or {@link Long#MAX_VALUE} if there are no queued URLs
+     */
+    public long getNextReadyTime() {
+        mutex.lock();
+        try {
+            ReadyHost next = readyHosts.peek();
+            return (next == null) ? Long.MAX_VALUE : next.readyTime;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * @return number of hosts which have URLs in the queue
+     */
+    public int getNumberOfHosts() {
+        mutex.lock();
+        try {
+            return queuedHosts.size();
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Returns the URLs {@link #delete(int)} would remove: the next URL of up to {@code max} hosts,
+     * in the order of the times at which they may be fetched, as {@link #pollBatch(int, WorkQueues)}
+     * hands them out but without waiting for the hosts to be ready.
+     *
+     * @param max maximum number of URLs to return
+     * @return the URLs, which all belong to different hosts
+     */
+    @Override
+    public List<WebURL> get(int max) {
+        mutex.lock();
+        try {
+            List<WebURL> results = new ArrayList<>(max);
+            DatabaseEntry key = new DatabaseEntry();
+            DatabaseEntry value = new DatabaseEntry();
+            Transaction txn = beginTransaction();
+            try (Cursor cursor = openCursor(txn)) {
+                for (ReadyHost readyHost : getHostsInReadyOrder()) {
+                    if (results.size() >= max) {
+                        break;
+                    }
+                    byte[] prefix = getHostPrefix(readyHost.host);
+                    key.setData(prefix);
+                    OperationStatus result = cursor.getSearchKeyRange(key, value, null);
+                    if ((result == OperationStatus.SUCCESS) && startsWith(key.getData(), prefix)) {
+                        results.add(webURLBinding.entryToObject(value));
+                    }
+                }
+            } finally {
+                commit(txn);
+            }
+            return results;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Removes the URLs returned by {@link #get(int)}: the next URL of up to {@code count} hosts,
+     * in the order of the times at which they may be fetched. Hosts left without URLs are no
+     * longer queued.
+     *
+     * @param count maximum number of URLs to remove
+     */
+    @Override
+    public void delete(int count) {
+        mutex.lock();
+        try {
+            List<ReadyHost> emptied = new ArrayList<>();
+            DatabaseEntry key = new DatabaseEntry();
+            DatabaseEntry value = new DatabaseEntry();
+            value.setPartial(0, 0, true);
+            Transaction txn = beginTransaction();
+            try {
+                try (Cursor cursor = openCursor(txn)) {
+                    int deleted = 0;
+                    for (ReadyHost readyHost : getHostsInReadyOrder()) {
+                        if (deleted >= count) {
+                            break;
+                        }
+                        byte[] prefix = getHostPrefix(readyHost.host);
+                        key.setData(prefix);
+                        OperationStatus result = cursor.getSearchKeyRange(key, value, null);
+                        if ((result == OperationStatus.SUCCESS) && startsWith(key.getData(), prefix)) {
+                            cursor.delete();
+                            deleted++;
+                            result = cursor.getNext(key, value, null);
+                        }
+                        if ((result != OperationStatus.SUCCESS) || !startsWith(key.getData(), prefix)) {
+                            emptied.add(readyHost);
+                        }
+                    }
+                }
+                commit(txn);
+            } catch (RuntimeException e) {
+                abort(txn);
+                throw e;
+            }
+            for (ReadyHost readyHost : emptied) {
+                readyHosts.remove(readyHost);
+                queuedHosts.remove(readyHost.host);
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * @return the queued hosts, sorted on the time at which they may be fetched
+     */
+    private List<ReadyHost> getHostsInReadyOrder() {
+        List<ReadyHost> hosts = new ArrayList<>(readyHosts);
+        Collections.sort(hosts);
+        return hosts;
+    }
+
+    @Override
+    public void put(WebURL url) {
+        DatabaseEntry value = new DatabaseEntry();
+        webURLBinding.objectToEntry(url, value);
+        String host = getHost(url);
+        mutex.lock();
+        try {
+            Transaction txn = beginTransaction();
+            urlsDB.put(txn, getHostEntryKey(host, url), value);
+            commit(txn);
+            if (queuedHosts.add(host)) {
+                readyHosts.add(new ReadyHost(host, politenessScheduler.getNextFetchTime(host)));
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Puts a URL in the queue of its host as part of a transaction of another work queue. The host
+     * is queued right away: if the transaction is aborted, it is dropped once it is found empty.
+     */
+    @Override
+    protected void put(Transaction txn, WebURL url, DatabaseEntry value) {
+        String host = getHost(url);
+        mutex.lock();
+        try {
+            urlsDB.put(txn, getHostEntryKey(host, url), value);
+            if (queuedHosts.add(host)) {
+                readyHosts.add(new ReadyHost(host, politenessScheduler.getNextFetchTime(host)));
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the in memory heap from the hosts stored in the database, which is needed when
+     * resuming a crawl. Only the first key of each host is visited.
+     */
+    private void loadHosts() {
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry value = new DatabaseEntry();
+        value.setPartial(0, 0, true);
+        Transaction txn = beginTransaction();
+        try (Cursor cursor = openCursor(txn)) {
+            OperationStatus result = cursor.getFirst(key, value, null);
+            while (result == OperationStatus.SUCCESS) {
+                byte[] data = key.getData();
+                int separatorIdx = 0;
+                while ((separatorIdx < data.length) && (data[separatorIdx] != 0)) {
+                    separatorIdx++;
+                }
+                String host = new String(data, 0, separatorIdx, StandardCharsets.UTF_8);
+                if (queuedHosts.add(host)) {
+                    readyHosts.add(new ReadyHost(host, 0));
+                }
+                // Keys of a host end with the 0 separator, so this is the first key of the next host
+                byte[] nextHost = getHostPrefix(host);
+                nextHost[nextHost.length - 1] = 1;
+                key.setData(nextHost);
+                result = cursor.getSearchKeyRange(key, value, null);
+            }
+        } finally {
+            commit(txn);
+        }
+    }
+
+    private static String getHost(WebURL url) {
+        return (url.getHost() == null) ? "" : url.getHost();
+    }
+
+    private static byte[] getHostPrefix(String host) {
+        byte[] hostData = host.getBytes(StandardCharsets.UTF_8);
+        byte[] prefix = new byte[hostData.length + 1];
+        System.arraycopy(hostData, 0, prefix, 0, hostData.length);
+        return prefix;
+    }
+
+    /*
+     * The key is the host followed by a 0 separator and the 6 bytes of the key used by
+     * WorkQueues, so within a host the URLs keep the priority/depth/docid order.
+     */
+    private static DatabaseEntry getHostEntryKey(String host, WebURL url) {
+        byte[] prefix = getHostPrefix(host);
+        byte[] urlKey = getDatabaseEntryKey(url).getData();
+        byte[] keyData = new byte[prefix.length + urlKey.length];
+        System.arraycopy(prefix, 0, keyData, 0, prefix.length);
+        System.arraycopy(urlKey, 0, keyData, prefix.length, urlKey.length);
+        return new DatabaseEntry(keyData);
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        if (data.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class ReadyHost implements Comparable<ReadyHost> {
+        private final String host;
+        private long readyTime;
+
+        ReadyHost(String host, long readyTime) {
+            this.host = host;
+            this.readyTime = readyTime;
+        }
+
+        @Override
+        public int compareTo(ReadyHost other) {
+            return Long.compare(readyTime, other.readyTime);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.frontier;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.sleepycat.je.Cursor;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.Transaction;
+
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.url.WebURL;
+import edu.uci.ics.crawler4j.util.Util;
+
+/**
+ * A {@link DocIDServer} which keeps the docids in memory, in an open addressing hash table
+ * which maps a 64 bit fingerprint of each URL to its docid. Lookups do not take any lock and
+ * new docids are inserted with compare-and-set, so crawler threads do not contend on a global
+ * lock for every outgoing link.
+ *
+ * <p>The table is made of primitive arrays, so it costs 12 bytes per slot and no objects per
+ * URL. Two different URLs with the same fingerprint are considered the same URL, which for 64
+ * bit fingerprints is very unlikely even with hundreds of millions of URLs.</p>
+ *
+ * <p>When resumable crawling is enabled, every new docid is also written to the docid database
+ * and the table is loaded from it at startup. Otherwise the database is not used at all.</p>
+ */
+public class InMemoryDocIDServer extends DocIDServer {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryDocIDServer.class);
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final long EMPTY = 0;
+    private static final HashFunction FINGERPRINT = Hashing.murmur3_128();
+
+    private final boolean resumable;
+
+    /**
+     * Inserts hold the read lock, so they can run concurrently with each other, and resizing
+     * holds the write lock. Lookups do not lock at all.
+     */
+    private final ReentrantReadWriteLock resizeLock = new ReentrantReadWriteLock();
+    private final AtomicInteger lastDocID = new AtomicInteger();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile Table table;
+
+    public InMemoryDocIDServer(Environment env, CrawlConfig config) {
+        super(env, config, false);
+        this.resumable = config.isResumableCrawling();
+        this.table = new Table(INITIAL_CAPACITY);
+        if (resumable) {
+            load();
+        }
+    }
+
+    @Override
+    public int getDocId(String url) {
+        return find(table, fingerprint(url));
+    }
+
+    @Override
+    public int getNewDocID(String url) {
+        int docId = claim(url);
+        if (docId < 0) {
+            return -docId;
+        }
+        store(null, url, docId);
+        return docId;
+    }
+
+    @Override
+    public void resolveAll(Collection<WebURL> urls) {
+        Table current = table;
+        for (WebURL url : urls) {
+            url.setDocid(find(current, fingerprint(url.getURL())));
+        }
+    }
+
+    @Override
+    public List<WebURL> assignAll(Collection<WebURL> urls) {
+        List<WebURL> assigned = new ArrayList<>(urls.size());
+        for (WebURL url : urls) {
+            int docId = claim(url.getURL());
+            url.setDocid(Math.abs(docId));
+            if (docId > 0) {
+                assigned.add(url);
+            }
+        }
+        if (resumable && !assigned.isEmpty()) {
+            Transaction txn = beginTransaction();
+            try {
+                for (WebURL url : assigned) {
+                    store(txn, url.getURL(), url.getDocid());
+                }
+                txn.commit();
+            } catch (RuntimeException e) {
+                txn.abort();
+                if (config.isHaltOnError()) {
+                    throw e;
+                } else {
+                    logger.error("Exception thrown while storing new DocIDs", e);
+                }
+            }
+        }
+        return assigned;
+    }
+
+    /**
+     * Assigns a new docid to the url unless it already has one.
+     *
+     * @return the new docid, or the negated existing docid if the url is seen before
+     */
+    private int claim(String url) {
+        long fingerprint = fingerprint(url);
+        int docId;
+        resizeLock.readLock().lock();
+        try {
+            Table current = table;
+            int slot = current.indexOf(fingerprint);
+            while (true) {
+                long key = current.keys.get(slot);
+                if (key == fingerprint) {
+                    return -current.awaitValue(slot);
+                }
+                if (key == EMPTY) {
+                    if (current.keys.compareAndSet(slot, EMPTY, fingerprint)) {
+                        docId = lastDocID.incrementAndGet();
+                        current.values.set(slot, docId);
+                        break;
+                    }
+                    // Another thread took this slot, check whether it was for the same URL
+                    continue;
+                }
+                slot = (slot + 1) & current.mask;
+            }
+        } finally {
+            resizeLock.readLock().unlock();
+        }
+        if (size.incrementAndGet() > table.threshold) {
+            resize();
+        }
+        return docId;
+    }
+
+    @Override
+    public void addUrlAndDocId(String url, int docId) {
+        long fingerprint = fingerprint(url);
+        resizeLock.writeLock().lock();
+        try {
+            if (docId <= lastDocID.get()) {
+                throw new IllegalArgumentException(
+                    "Requested doc id: " + docId + " is not larger than: " + lastDocID.get());
+            }
+
+            // Make sure that we have not already assigned a docid for this URL
+            int prevDocid = find(table, fingerprint);
+            if (prevDocid > 0) {
+                if (prevDocid == docId) {
+                    return;
+                }
+                throw new IllegalArgumentException("Doc id: " + prevDocid + " is already assigned to URL: " + url);
+            }
+
+            table.put(fingerprint, docId);
+            lastDocID.set(docId);
+            if (size.incrementAndGet() > table.threshold) {
+                resize();
+            }
+        } finally {
+            resizeLock.writeLock().unlock();
+        }
+        store(null, url, docId);
+    }
+
+    @Override
+    public int getDocCount() {
+        return size.get();
+    }
+
+    private static long fingerprint(String url) {
+        long fingerprint = FINGERPRINT.hashUnencodedChars(url).asLong();
+        return (fingerprint == EMPTY) ? 1 : fingerprint;
+    }
+
+    private static int find(Table current, long fingerprint) {
+        int slot = current.indexOf(fingerprint);
+        while (true) {
+            long key = current.keys.get(slot);
+            if (key == fingerprint) {
+                return current.awaitValue(slot);
+            }
+            if (key == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & current.mask;
+        }
+    }
+
+    private void resize() {
+        resizeLock.writeLock().lock();
+        try {
+            Table current = table;
+            if ((size.get() <= current.threshold) || (current.capacity() >= MAXIMUM_CAPACITY)) {
+                return;
+            }
+            Table resized = new Table(current.capacity() * 2);
+            for (int i = 0; i < current.capacity(); i++) {
+                long key = current.keys.get(i);
+                if (key != EMPTY) {
+                    resized.put(key, current.values.get(i));
+                }
+            }
+            table = resized;
+            logger.debug("Resized docid table to {} slots", resized.capacity());
+        } finally {
+            resizeLock.writeLock().unlock();
+        }
+    }
+
+    private void store(Transaction txn, String url, int docId) {
+        if (!resumable) {
+            return;
+        }
+        if (txn != null) {
+            docIDsDB.put(txn, new DatabaseEntry(url.getBytes()),
+                         new DatabaseEntry(Util.int2ByteArray(docId)));
+            return;
+        }
+        try {
+            docIDsDB.put(null, new DatabaseEntry(url.getBytes()),
+                         new DatabaseEntry(Util.int2ByteArray(docId)));
+        } catch (RuntimeException e) {
+            if (config.isHaltOnError()) {
+                throw e;
+            } else {
+                logger.error("Exception thrown while storing DocID", e);
+            }
+        }
+    }
+
+    private void load() {
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry value = new DatabaseEntry();
+        int maxDocId = 0;
+        resizeLock.writeLock().lock();
+        try (Cursor cursor = docIDsDB.openCursor(null, null)) {
+            OperationStatus result = cursor.getFirst(key, value, null);
+            while (result == OperationStatus.SUCCESS) {
+                if (value.getData().length > 0) {
+                    int docId = Util.byteArray2Int(value.getData());
+                    maxDocId = Math.max(maxDocId, docId);
+                    if (table.put(fingerprint(new String(key.getData())), docId) &&
+                        (size.incrementAndGet() > table.threshold)) {
+                        resize();
+                    }
+                }
+                result = cursor.getNext(key, value, null);
+            }
+        } finally {
+            resizeLock.writeLock().unlock();
+        }
+        lastDocID.set(maxDocId);
+    }
+
+    private static final class Table {
+        private final AtomicLongArray keys;
+        private final AtomicIntegerArray values;
+        private final int mask;
+        private final int threshold;
+
+        Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            values = new AtomicIntegerArray(capacity);
+            mask = capacity - 1;
+            threshold = (capacity / 4) * 3;
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        int indexOf(long fingerprint) {
+            return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+        }
+
+        /**
+         * Inserts without compare-and-set, only used while holding the write lock.
+         *
+         * @return {@code true} if the fingerprint was not in the table before
+         */
+        boolean put(long fingerprint, int docId) {
+            int slot = indexOf(fingerprint);
+            while ((keys.get(slot) != EMPTY) && (keys.get(slot) != fingerprint)) {
+                slot = (slot + 1) & mask;
+            }
+            boolean isNew = keys.get(slot) == EMPTY;
+            keys.set(slot, fingerprint);
+            values.set(slot, docId);
+            return isNew;
+        }
+
+        /**
+         * A slot is claimed before its docid is written, so a reader may briefly see a claimed
+         * slot without a docid.
+         */
+        int awaitValue(int slot) {
+            int value = values.get(slot);
+            while (value == 0) {
+                Thread.yield();
+                value = values.get(slot);
+            }
+            return value;
+        }
+    }
+}
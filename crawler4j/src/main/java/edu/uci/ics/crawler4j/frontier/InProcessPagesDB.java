@@ -50,7 +50,8 @@ public class InProcessPagesDB extends WorkQueues {
     }
 
     public boolean removeURL(WebURL webUrl) {
-        synchronized (mutex) {
+        mutex.lock();
+        try {
             DatabaseEntry key = getDatabaseEntryKey(webUrl);
             DatabaseEntry value = new DatabaseEntry();
             Transaction txn = beginTransaction();
@@ -66,6 +67,8 @@ public class InProcessPagesDB extends WorkQueues {
             } finally {
                 commit(txn);
             }
+        } finally {
+            mutex.unlock();
         }
         return false;
     }
@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.frontier;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sleepycat.je.Cursor;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.Transaction;
+
+import edu.uci.ics.crawler4j.url.WebURL;
+
+/**
+ * This class maintains the URLs whose fetch failed and which wait to be retried. Their keys
+ * start with the time before which they should not be fetched again, so the URLs are ordered by
+ * that time and the ones which are due are at the head of the queue.
+ */
+public class RetryQueues extends WorkQueues {
+
+    public RetryQueues(Environment env, String dbName, boolean resumable) {
+        super(env, dbName, resumable);
+    }
+
+    /*
+     * The keys are 12 bytes: the 8 bytes of the time the URL may be fetched again at, followed by
+     * the 4 bytes of its docid.
+     */
+    private static DatabaseEntry getRetryEntryKey(WebURL url) {
+        ByteBuffer keyData = ByteBuffer.allocate(12);
+        keyData.putLong(Math.max(0, url.getNotBefore()));
+        keyData.putInt(url.getDocid());
+        return new DatabaseEntry(keyData.array());
+    }
+
+    private static long getNotBefore(DatabaseEntry key) {
+        return ByteBuffer.wrap(key.getData(), key.getOffset(), key.getSize()).getLong();
+    }
+
+    @Override
+    public void put(WebURL url) {
+        put(url, null);
+    }
+
+    /**
+     * Puts a URL in the queue and removes it from other work queues within the same transaction,
+     * so a URL taken from the pages in process is not fetched again by a resumed crawl as well.
+     *
+     * @param url the URL to retry
+     * @param removeFrom work queues the URL is removed from, or null
+     */
+    public void put(WebURL url, WorkQueues removeFrom) {
+        DatabaseEntry value = new DatabaseEntry();
+        webURLBinding.objectToEntry(url, value);
+        mutex.lock();
+        try {
+            Transaction txn = beginTransaction();
+            try {
+                urlsDB.put(txn, getRetryEntryKey(url), value);
+                if (removeFrom != null) {
+                    removeFrom.delete(txn, getDatabaseEntryKey(url));
+                }
+                commit(txn);
+            } catch (RuntimeException e) {
+                abort(txn);
+                throw e;
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Removes up to {@code max} URLs which may be fetched again at the given time from the queue.
+     *
+     * @param now the current time in milliseconds
+     * @param max maximum number of URLs to return
+     * @return the URLs which are due, earliest first
+     */
+    public List<WebURL> pollDue(long now, int max) {
+        return pollDue(now, max, null);
+    }
+
+    /**
+     * Removes up to {@code max} URLs which may be fetched again at the given time from the queue.
+     * If {@code moveTo} is given, the URLs are put in it within the same transaction.
+     *
+     * @param now the current time in milliseconds
+     * @param max maximum number of URLs to return
+     * @param moveTo work queues which receive the returned URLs, or null
+     * @return the URLs which are due, earliest first
+     */
+    public List<WebURL> pollDue(long now, int max, WorkQueues moveTo) {
+        mutex.lock();
+        try {
+            List<WebURL> results = new ArrayList<>();
+            DatabaseEntry key = new DatabaseEntry();
+            DatabaseEntry value = new DatabaseEntry();
+            Transaction txn = beginTransaction();
+            try {
+                try (Cursor cursor = openCursor(txn)) {
+                    OperationStatus result = cursor.getFirst(key, value, null);
+                    while ((results.size() < max) && (result == OperationStatus.SUCCESS) &&
+                           (getNotBefore(key) <= now)) {
+                        WebURL url = webURLBinding.entryToObject(value);
+                        results.add(url);
+                        if (moveTo != null) {
+                            moveTo.put(txn, url, value);
+                        }
+                        cursor.delete();
+                        result = cursor.getNext(key, value, null);
+                    }
+                }
+                commit(txn);
+            } catch (RuntimeException e) {
+                abort(txn);
+                throw e;
+            }
+            return results;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * @return the earliest time (in milliseconds) at which one of the queued URLs may be fetched
+     * again, or {@link Long#MAX_VALUE} if there are no queued URLs
+     */
+    public long getNextRetryTime() {
+        mutex.lock();
+        try {
+            DatabaseEntry key = new DatabaseEntry();
+            DatabaseEntry value = new DatabaseEntry();
+            value.setPartial(0, 0, true);
+            Transaction txn = beginTransaction();
+            try (Cursor cursor = openCursor(txn)) {
+                if (cursor.getFirst(key, value, null) == OperationStatus.SUCCESS) {
+                    return getNotBefore(key);
+                }
+                return Long.MAX_VALUE;
+            } finally {
+                commit(txn);
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+}
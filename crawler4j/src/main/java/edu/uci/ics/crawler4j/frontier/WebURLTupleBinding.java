@@ -38,6 +38,11 @@ public class WebURLTupleBinding extends TupleBinding<WebURL> {
         webURL.setDepth(input.readShort());
         webURL.setPriority(input.readByte());
         webURL.setAnchor(input.readString());
+        // URLs stored by older versions do not have the retry fields
+        if (input.available() > 0) {
+            webURL.setAttempts(input.readShort());
+            webURL.setNotBefore(input.readLong());
+        }
         return webURL;
     }
 
@@ -50,5 +55,7 @@ public class WebURLTupleBinding extends TupleBinding<WebURL> {
         output.writeShort(url.getDepth());
         output.writeByte(url.getPriority());
         output.writeString(url.getAnchor());
+        output.writeShort(url.getAttempts());
+        output.writeLong(url.getNotBefore());
     }
 }
\ No newline at end of file
@@ -19,6 +19,7 @@ package edu.uci.ics.crawler4j.frontier;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.sleepycat.je.Cursor;
 import com.sleepycat.je.Database;
@@ -35,14 +36,14 @@ import edu.uci.ics.crawler4j.util.Util;
  * @author Yasser Ganjisaffar
  */
 public class WorkQueues {
-    private final Database urlsDB;
+    protected final Database urlsDB;
     private final Environment env;
 
     private final boolean resumable;
 
-    private final WebURLTupleBinding webURLBinding;
+    protected final WebURLTupleBinding webURLBinding;
 
-    protected final Object mutex = new Object();
+    protected final ReentrantLock mutex = new ReentrantLock();
 
     public WorkQueues(Environment env, String dbName, boolean resumable) {
         this.env = env;
@@ -65,12 +66,19 @@ public class WorkQueues {
         }
     }
 
+    protected static void abort(Transaction txn) {
+        if (txn != null) {
+            txn.abort();
+        }
+    }
+
     protected Cursor openCursor(Transaction txn) {
         return urlsDB.openCursor(txn, null);
     }
 
     public List<WebURL> get(int max) {
-        synchronized (mutex) {
+        mutex.lock();
+        try {
             List<WebURL> results = new ArrayList<>(max);
             DatabaseEntry key = new DatabaseEntry();
             DatabaseEntry value = new DatabaseEntry();
@@ -88,11 +96,14 @@ public class WorkQueues {
             }
             commit(txn);
             return results;
+        } finally {
+            mutex.unlock();
         }
     }
 
     public void delete(int count) {
-        synchronized (mutex) {
+        mutex.lock();
+        try {
             DatabaseEntry key = new DatabaseEntry();
             DatabaseEntry value = new DatabaseEntry();
             Transaction txn = beginTransaction();
@@ -106,6 +117,49 @@ public class WorkQueues {
                 }
             }
             commit(txn);
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Removes up to {@code max} URLs from the head of the queue and returns them. The URLs are
+     * read and deleted in a single cursor pass and transaction, and if {@code moveTo} is given,
+     * they are put in it within the same transaction.
+     *
+     * @param max maximum number of URLs to return
+     * @param moveTo work queues which receive the returned URLs, or null
+     * @return the URLs which were at the head of the queue
+     */
+    public List<WebURL> pollBatch(int max, WorkQueues moveTo) {
+        mutex.lock();
+        try {
+            List<WebURL> results = new ArrayList<>(max);
+            DatabaseEntry key = new DatabaseEntry();
+            DatabaseEntry value = new DatabaseEntry();
+            Transaction txn = beginTransaction();
+            try {
+                try (Cursor cursor = openCursor(txn)) {
+                    OperationStatus result = cursor.getFirst(key, value, null);
+                    while ((results.size() < max) && (result == OperationStatus.SUCCESS)) {
+                        if (value.getData().length > 0) {
+                            results.add(webURLBinding.entryToObject(value));
+                            if (moveTo != null) {
+                                moveTo.put(txn, key, value);
+                            }
+                        }
+                        cursor.delete();
+                        result = cursor.getNext(key, value, null);
+                    }
+                }
+                commit(txn);
+            } catch (RuntimeException e) {
+                abort(txn);
+                throw e;
+            }
+            return results;
+        } finally {
+            mutex.unlock();
         }
     }
 
@@ -136,6 +190,27 @@ public class WorkQueues {
         commit(txn);
     }
 
+    /**
+     * Puts an entry as part of a transaction of another work queue.
+     */
+    protected void put(Transaction txn, DatabaseEntry key, DatabaseEntry value) {
+        urlsDB.put(txn, key, value);
+    }
+
+    /**
+     * Puts a URL, whose entry is given, as part of a transaction of another work queue.
+     */
+    protected void put(Transaction txn, WebURL url, DatabaseEntry value) {
+        urlsDB.put(txn, getDatabaseEntryKey(url), value);
+    }
+
+    /**
+     * Deletes an entry as part of a transaction of another work queue.
+     */
+    protected void delete(Transaction txn, DatabaseEntry key) {
+        urlsDB.delete(txn, key);
+    }
+
     public long getLength() {
         return urlsDB.count();
     }
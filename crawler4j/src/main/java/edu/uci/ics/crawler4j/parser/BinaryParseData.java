@@ -51,18 +51,17 @@ public class BinaryParseData implements ParseData {
     private static final String DEFAULT_ENCODING = "UTF-8";
     private static final String DEFAULT_OUTPUT_FORMAT = "html";
 
-    private static final Parser AUTO_DETECT_PARSER = new AutoDetectParser();
+    /**
+     * Every thread parsing binary content has its own parser, as they are not shared between
+     * threads.
+     */
+    private static final ThreadLocal<Parser> AUTO_DETECT_PARSER = ThreadLocal.withInitial(AutoDetectParser::new);
     private static final SAXTransformerFactory SAX_TRANSFORMER_FACTORY =
         (SAXTransformerFactory) TransformerFactory.newInstance();
 
-    private final ParseContext context = new ParseContext();
     private Set<WebURL> outgoingUrls = new HashSet<>();
     private String html = null;
 
-    public BinaryParseData() {
-        context.set(Parser.class, AUTO_DETECT_PARSER);
-    }
-
     public void setBinaryContent(byte[] data)
                 throws TransformerConfigurationException, TikaException, SAXException, IOException {
         InputStream inputStream = new ByteArrayInputStream(data);
@@ -71,7 +70,10 @@ public class BinaryParseData implements ParseData {
         try {
             TransformerHandler handler =
                 getTransformerHandler(outputStream, DEFAULT_OUTPUT_FORMAT, DEFAULT_ENCODING);
-            AUTO_DETECT_PARSER.parse(inputStream, handler, new Metadata(), context);
+            Parser parser = AUTO_DETECT_PARSER.get();
+            ParseContext context = new ParseContext();
+            context.set(Parser.class, parser);
+            parser.parse(inputStream, handler, new Metadata(), context);
 
             // Hacking the following line to remove Tika's inserted DocType
             this.html = new String(outputStream.toByteArray(), DEFAULT_ENCODING).replace(
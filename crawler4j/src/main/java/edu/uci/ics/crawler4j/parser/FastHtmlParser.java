@@ -0,0 +1,594 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.uci.ics.crawler4j.crawler.CrawlConfig;
+import edu.uci.ics.crawler4j.crawler.Page;
+import edu.uci.ics.crawler4j.crawler.exceptions.ParseException;
+import edu.uci.ics.crawler4j.url.TLDList;
+import edu.uci.ics.crawler4j.url.WebURL;
+
+/**
+ * An {@link HtmlParser} which scans the bytes of a page for the links, the title and the meta
+ * tags, the same ones {@link HtmlContentHandler} extracts, without building a document or a
+ * stream of SAX events.
+ *
+ * <p>Only pages in charsets which encode ASCII as single bytes, like UTF-8 or ISO-8859-1, are
+ * scanned; the other ones are parsed by {@link TikaHtmlParser}. The text of the page is not
+ * extracted by the scan, it is extracted by Tika the first time it is asked for.</p>
+ */
+public class FastHtmlParser implements HtmlParser {
+    protected static final Logger logger = LoggerFactory.getLogger(FastHtmlParser.class);
+
+    private static final int MAX_ANCHOR_LENGTH = 100;
+
+    /**
+     * Number of bytes at the beginning of a page searched for its charset when it is unknown.
+     */
+    private static final int CHARSET_SNIFF_LENGTH = 1024;
+
+    /**
+     * Size of the buffer the content of a page is read into, most pages fit in it.
+     */
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private static final String ASCII_PROBE = "<>/=\"' \t\n!?&#;-azAZ09";
+    private static final byte[] ASCII_PROBE_BYTES = ASCII_PROBE.getBytes(StandardCharsets.US_ASCII);
+
+    private static final Map<String, String> ENTITIES = new HashMap<>();
+
+    static {
+        ENTITIES.put("amp", "&");
+        ENTITIES.put("lt", "<");
+        ENTITIES.put("gt", ">");
+        ENTITIES.put("quot", "\"");
+        ENTITIES.put("apos", "'");
+        ENTITIES.put("nbsp", "\u00A0");
+    }
+
+    private final TikaHtmlParser tikaParser;
+
+    /**
+     * The buffer each thread reads the content of the pages it scans into, so it is not copied
+     * into a new array for every page. Larger pages are read into a larger array which is not
+     * kept, so each thread only holds {@link #SCAN_BUFFER_SIZE} bytes.
+     */
+    private final ThreadLocal<byte[]> scanBuffer = ThreadLocal.withInitial(() -> new byte[SCAN_BUFFER_SIZE]);
+
+    public FastHtmlParser(CrawlConfig config, TLDList tldList) throws InstantiationException, IllegalAccessException {
+        this.tikaParser = new TikaHtmlParser(config, tldList);
+    }
+
+    @Override
+    public HtmlParseData parse(Page page, String contextURL) throws ParseException {
+        byte[] data = scanBuffer.get();
+        int length = 0;
+        try (InputStream inputStream = page.getContentStream()) {
+            int read;
+            while ((read = inputStream.read(data, length, data.length - length)) != -1) {
+                length += read;
+                if (length == data.length) {
+                    // Only used for this page, the buffer kept by the thread does not grow
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+            }
+        } catch (IOException e) {
+            throw new ParseException("could not parse [" + page.getWebURL().getURL() + "]", e);
+        }
+        Charset charset = getScannableCharset(page, data, length);
+        if (charset == null) {
+            return tikaParser.parse(page, contextURL);
+        }
+
+        Scanner scanner = new Scanner(data, length, charset);
+        try {
+            scanner.scan();
+        } catch (RuntimeException e) {
+            logger.error("{}, while parsing: {}", e.getMessage(), page.getWebURL().getURL());
+            throw new ParseException("could not parse [" + page.getWebURL().getURL() + "]", e);
+        }
+
+        HtmlParseData parsedData = new HtmlParseData();
+        String contentCharset = page.getContentCharset();
+        if ((contentCharset == null) || contentCharset.isEmpty()) {
+            contentCharset = charset.name();
+        }
+        parsedData.setContentCharset(contentCharset);
+        parsedData.setTitle(scanner.title);
+        parsedData.setMetaTags(scanner.metaTags);
+        parsedData.setTextLoader(() -> tikaParser.parseText(page));
+
+        try {
+            Set<WebURL> outgoingUrls = tikaParser.getOutgoingUrls(contextURL, scanner.base, scanner.outgoingUrls,
+                                                                  contentCharset);
+            parsedData.setOutgoingUrls(outgoingUrls);
+        } catch (UnsupportedEncodingException e) {
+            logger.error("error parsing the html: " + page.getWebURL().getURL(), e);
+            throw new ParseException("could not parse [" + page.getWebURL().getURL() + "]", e);
+        }
+        parsedData.setHtmlLoader(() -> {
+            try {
+                return page.getContentAsString(charset);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return parsedData;
+    }
+
+    /**
+     * @return the charset of the page, the one declared in its first bytes or UTF-8, or null if
+     * it is not supported or does not encode ASCII as single bytes
+     */
+    private static Charset getScannableCharset(Page page, byte[] data, int length) {
+        if ((length >= 2) && (((data[0] == (byte) 0xFE) && (data[1] == (byte) 0xFF)) ||
+                                   ((data[0] == (byte) 0xFF) && (data[1] == (byte) 0xFE)))) {
+            return null; // UTF-16 byte order mark
+        }
+        String charsetName = page.getContentCharset();
+        if ((charsetName == null) || charsetName.isEmpty()) {
+            charsetName = sniffCharset(data, length);
+            if (charsetName == null) {
+                return StandardCharsets.UTF_8;
+            }
+        }
+        try {
+            Charset charset = Charset.forName(charsetName.trim());
+            return Arrays.equals(ASCII_PROBE.getBytes(charset), ASCII_PROBE_BYTES) ? charset : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the charset declared by a meta tag in the first bytes of the page, or null
+     */
+    private static String sniffCharset(byte[] data, int length) {
+        String head = new String(data, 0, Math.min(length, CHARSET_SNIFF_LENGTH),
+                                 StandardCharsets.ISO_8859_1).toLowerCase();
+        int pos = head.indexOf("charset=");
+        if (pos == -1) {
+            return null;
+        }
+        int start = pos + "charset=".length();
+        while ((start < head.length()) && ((head.charAt(start) == '"') || (head.charAt(start) == '\''))) {
+            start++;
+        }
+        int end = start;
+        while ((end < head.length()) && isCharsetNameChar(head.charAt(end))) {
+            end++;
+        }
+        return (end > start) ? head.substring(start, end) : null;
+    }
+
+    private static boolean isCharsetNameChar(char c) {
+        return ((c >= 'a') && (c <= 'z')) || ((c >= '0') && (c <= '9')) ||
+               (c == '-') || (c == '_') || (c == '.') || (c == ':');
+    }
+
+    /**
+     * Decodes the character references of a text or an attribute value.
+     */
+    static String decodeEntities(String text) {
+        int amp = text.indexOf('&');
+        if (amp == -1) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        int pos = 0;
+        while (amp != -1) {
+            sb.append(text, pos, amp);
+            pos = amp + 1;
+            int semicolon = text.indexOf(';', pos);
+            String decoded = null;
+            if ((semicolon != -1) && (semicolon - pos <= 10)) {
+                decoded = decodeEntity(text.substring(pos, semicolon));
+            }
+            if (decoded == null) {
+                sb.append('&');
+            } else {
+                sb.append(decoded);
+                pos = semicolon + 1;
+            }
+            amp = text.indexOf('&', pos);
+        }
+        sb.append(text, pos, text.length());
+        return sb.toString();
+    }
+
+    private static String decodeEntity(String name) {
+        if (name.startsWith("#")) {
+            try {
+                int codePoint = ((name.length() > 1) && ((name.charAt(1) == 'x') || (name.charAt(1) == 'X'))) ?
+                        Integer.parseInt(name.substring(2), 16) : Integer.parseInt(name.substring(1));
+                return Character.isValidCodePoint(codePoint) ? new String(Character.toChars(codePoint)) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return ENTITIES.get(name);
+    }
+
+    /**
+     * Scans the content of a page once, from the beginning to the end.
+     */
+    private static final class Scanner {
+        private final byte[] data;
+        private final int length;
+        private final Charset charset;
+        private int pos;
+
+        private String base;
+        private String title;
+        private boolean hasMetaRefresh;
+        private boolean hasMetaLocation;
+        private final Map<String, String> metaTags = new HashMap<>();
+        private final List<ExtractedUrlAnchorPair> outgoingUrls = new ArrayList<>();
+
+        private ExtractedUrlAnchorPair curUrl;
+        private final StringBuilder anchorText = new StringBuilder();
+
+        Scanner(byte[] data, int length, Charset charset) {
+            this.data = data;
+            this.length = length;
+            this.charset = charset;
+        }
+
+        void scan() {
+            while (pos < length) {
+                int lt = indexOf((byte) '<', pos);
+                if (lt == -1) {
+                    text(pos, length);
+                    pos = length;
+                } else {
+                    text(pos, lt);
+                    pos = lt;
+                    markup();
+                }
+            }
+            endAnchor();
+        }
+
+        /**
+         * Scans the markup starting at the current position, which is a {@code '<'}.
+         */
+        private void markup() {
+            if (startsWith("<!--", pos)) {
+                int end = indexOf("-->", pos + 4);
+                pos = (end == -1) ? length : end + 3;
+            } else if ((pos + 1 < length) && ((data[pos + 1] == '!') || (data[pos + 1] == '?'))) {
+                skipTo((byte) '>');
+            } else if ((pos + 1 < length) && (data[pos + 1] == '/') && (pos + 2 < length) &&
+                       isLetter(data[pos + 2])) {
+                pos += 2;
+                String name = readName();
+                skipTo((byte) '>');
+                endTag(name);
+            } else if ((pos + 1 < length) && isLetter(data[pos + 1])) {
+                pos++;
+                String name = readName();
+                startTag(name);
+            } else {
+                text(pos, pos + 1);
+                pos++;
+            }
+        }
+
+        private void startTag(String name) {
+            switch (name) {
+                case "a":
+                case "area":
+                case "link":
+                    Map<String, String> attributes = readAttributes(true);
+                    String href = attributes.get("href");
+                    if (href != null) {
+                        endAnchor();
+                        ExtractedUrlAnchorPair urlAnchorPair = addToOutgoingUrls(href, name);
+                        urlAnchorPair.setAttributes(attributes);
+                        if ("a".equals(name)) { // area and link elements are empty, they have no anchor text
+                            curUrl = urlAnchorPair;
+                        }
+                    }
+                    break;
+                case "img":
+                case "iframe":
+                case "frame":
+                case "embed":
+                    addSource(readAttributes(true).get("src"), name);
+                    break;
+                case "script":
+                    addSource(readAttributes(true).get("src"), name);
+                    skipRawText("</script");
+                    break;
+                case "style":
+                    readAttributes(false);
+                    skipRawText("</style");
+                    break;
+                case "base":
+                    String baseHref = readAttributes(true).get("href");
+                    if ((base == null) && (baseHref != null)) { // Only the first base element counts
+                        base = baseHref;
+                    }
+                    break;
+                case "meta":
+                    meta(readAttributes(true));
+                    break;
+                case "title":
+                    readAttributes(false);
+                    int start = pos;
+                    int end = skipRawText("</title");
+                    if (title == null) {
+                        title = decodeEntities(decode(start, end)).trim();
+                    }
+                    break;
+                default:
+                    readAttributes(false);
+            }
+        }
+
+        private void endTag(String name) {
+            if ("a".equals(name)) {
+                endAnchor();
+            }
+        }
+
+        private void meta(Map<String, String> attributes) {
+            String equiv = attributes.get("http-equiv");
+            if (equiv == null) { // This condition covers several cases of XHTML meta
+                equiv = attributes.get("name");
+            }
+            String content = attributes.get("content");
+            if ((equiv == null) || (content == null)) {
+                return;
+            }
+            equiv = equiv.toLowerCase();
+            metaTags.put(equiv, content);
+
+            // http-equiv="refresh" content="0;URL=http://foo.bar/..."
+            if ("refresh".equals(equiv) && !hasMetaRefresh) {
+                int urlPos = content.toLowerCase().indexOf("url=");
+                if (urlPos != -1) {
+                    hasMetaRefresh = true;
+                    addToOutgoingUrls(content.substring(urlPos + 4), "meta");
+                }
+            }
+
+            // http-equiv="location" content="http://foo.bar/..."
+            if ("location".equals(equiv) && !hasMetaLocation) {
+                hasMetaLocation = true;
+                addToOutgoingUrls(content, "meta");
+            }
+        }
+
+        private void addSource(String src, String tag) {
+            if (src != null) {
+                addToOutgoingUrls(src, tag);
+            }
+        }
+
+        private ExtractedUrlAnchorPair addToOutgoingUrls(String href, String tag) {
+            ExtractedUrlAnchorPair urlAnchorPair = new ExtractedUrlAnchorPair();
+            urlAnchorPair.setHref(href);
+            urlAnchorPair.setTag(tag);
+            outgoingUrls.add(urlAnchorPair);
+            return urlAnchorPair;
+        }
+
+        /**
+         * Sets the anchor text of the current link, if there is one.
+         */
+        private void endAnchor() {
+            if (curUrl == null) {
+                return;
+            }
+            String anchor = anchorText.toString().replace('\n', ' ').replace('\t', ' ').replace('\r', ' ').trim();
+            if (!anchor.isEmpty()) {
+                if (anchor.length() > MAX_ANCHOR_LENGTH) {
+                    anchor = anchor.substring(0, MAX_ANCHOR_LENGTH) + "...";
+                }
+                curUrl.setAnchor(anchor);
+            }
+            anchorText.setLength(0);
+            curUrl = null;
+        }
+
+        private void text(int start, int end) {
+            if ((curUrl != null) && (end > start)) {
+                anchorText.append(decodeEntities(decode(start, end)));
+            }
+        }
+
+        /**
+         * Reads the attributes of a start tag, up to and including its closing {@code '>'}.
+         *
+         * @param collect whether the attributes are returned or only skipped
+         * @return the attributes by their lower case names, or null if they are not collected
+         */
+        private Map<String, String> readAttributes(boolean collect) {
+            Map<String, String> attributes = collect ? new LinkedHashMap<>() : null;
+            while (pos < length) {
+                byte b = data[pos];
+                if (b == '>') {
+                    pos++;
+                    break;
+                }
+                if (isWhitespace(b) || (b == '/')) {
+                    pos++;
+                    continue;
+                }
+                int nameStart = pos;
+                while ((pos < length) && !isWhitespace(data[pos]) && (data[pos] != '>') &&
+                       (data[pos] != '=') && (data[pos] != '/')) {
+                    pos++;
+                }
+                if (pos == nameStart) { // A stray '='
+                    pos++;
+                    continue;
+                }
+                int nameEnd = pos;
+                skipWhitespace();
+                String value = "";
+                if ((pos < length) && (data[pos] == '=')) {
+                    pos++;
+                    skipWhitespace();
+                    value = readValue(collect);
+                }
+                if (collect) {
+                    String name = new String(data, nameStart, nameEnd - nameStart, StandardCharsets.ISO_8859_1);
+                    attributes.putIfAbsent(name.toLowerCase(), value);
+                }
+            }
+            return attributes;
+        }
+
+        private String readValue(boolean decode) {
+            if (pos >= length) {
+                return "";
+            }
+            int start;
+            int end;
+            byte quote = data[pos];
+            if ((quote == '"') || (quote == '\'')) {
+                start = pos + 1;
+                end = indexOf(quote, start);
+                if (end == -1) {
+                    end = length;
+                }
+                pos = Math.min(end + 1, length);
+            } else {
+                start = pos;
+                while ((pos < length) && !isWhitespace(data[pos]) && (data[pos] != '>')) {
+                    pos++;
+                }
+                end = pos;
+            }
+            return decode ? decodeEntities(decode(start, end)) : null;
+        }
+
+        private String readName() {
+            int start = pos;
+            while ((pos < length) && !isWhitespace(data[pos]) && (data[pos] != '>') && (data[pos] != '/')) {
+                pos++;
+            }
+            return new String(data, start, pos - start, StandardCharsets.ISO_8859_1).toLowerCase();
+        }
+
+        /**
+         * Skips the content of an element whose content is not markup, and its end tag.
+         *
+         * @return the position where the content ends
+         */
+        private int skipRawText(String endTag) {
+            int end = indexOfIgnoreCase(endTag, pos);
+            if (end == -1) {
+                pos = length;
+                return length;
+            }
+            pos = end;
+            skipTo((byte) '>');
+            return end;
+        }
+
+        private void skipTo(byte b) {
+            int end = indexOf(b, pos);
+            pos = (end == -1) ? length : end + 1;
+        }
+
+        private void skipWhitespace() {
+            while ((pos < length) && isWhitespace(data[pos])) {
+                pos++;
+            }
+        }
+
+        private String decode(int start, int end) {
+            return new String(data, start, end - start, charset);
+        }
+
+        private int indexOf(byte b, int from) {
+            for (int i = from; i < length; i++) {
+                if (data[i] == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int indexOf(String s, int from) {
+            for (int i = from; i <= length - s.length(); i++) {
+                if (startsWith(s, i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @param s a lower case ASCII string
+         */
+        private int indexOfIgnoreCase(String s, int from) {
+            for (int i = from; i <= length - s.length(); i++) {
+                int j = 0;
+                while ((j < s.length()) && (Character.toLowerCase((char) data[i + j]) == s.charAt(j))) {
+                    j++;
+                }
+                if (j == s.length()) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean startsWith(String s, int at) {
+            if (at + s.length() > length) {
+                return false;
+            }
+            for (int i = 0; i < s.length(); i++) {
+                if (data[at + i] != s.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isLetter(byte b) {
+            return ((b >= 'a') && (b <= 'z')) || ((b >= 'A') && (b <= 'Z'));
+        }
+
+        private static boolean isWhitespace(byte b) {
+            return (b == ' ') || (b == '\t') || (b == '\n') || (b == '\r') || (b == '\f');
+        }
+    }
+}
@@ -65,6 +65,7 @@ public class HtmlContentHandler extends DefaultHandler {
     private final Map<String, String> metaTags = new HashMap<>();
 
     private boolean isWithinBodyElement;
+    private final boolean collectBodyText;
     private final StringBuilder bodyText;
 
     private final List<ExtractedUrlAnchorPair> outgoingUrls;
@@ -74,6 +75,15 @@ public class HtmlContentHandler extends DefaultHandler {
     private final StringBuilder anchorText = new StringBuilder();
 
     public HtmlContentHandler() {
+        this(true);
+    }
+
+    /**
+     * @param collectBodyText whether the text of the body is collected, otherwise only the
+     * links, their anchors and the meta tags are
+     */
+    public HtmlContentHandler(boolean collectBodyText) {
+        this.collectBodyText = collectBodyText;
         isWithinBodyElement = false;
         bodyText = new StringBuilder();
         outgoingUrls = new ArrayList<>();
@@ -184,10 +194,12 @@ public class HtmlContentHandler extends DefaultHandler {
     @Override
     public void characters(char[] ch, int start, int length) throws SAXException {
         if (isWithinBodyElement) {
-            if (bodyText.length() > 0) {
-                bodyText.append(' ');
+            if (collectBodyText) {
+                if (bodyText.length() > 0) {
+                    bodyText.append(' ');
+                }
+                bodyText.append(ch, start, length);
             }
-            bodyText.append(ch, start, length);
             if (anchorFlag) {
                 anchorText.append(new String(ch, start, length));
             }
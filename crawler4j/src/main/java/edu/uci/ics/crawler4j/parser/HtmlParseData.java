@@ -19,13 +19,16 @@ package edu.uci.ics.crawler4j.parser;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import edu.uci.ics.crawler4j.url.WebURL;
 
 public class HtmlParseData implements ParseData {
 
     private String html;
+    private Supplier<String> htmlLoader;
     private String text;
+    private Supplier<String> textLoader;
     private String title;
     private Map<String, String> metaTags;
 
@@ -33,19 +36,47 @@ public class HtmlParseData implements ParseData {
     private String contentCharset;
 
     public String getHtml() {
+        if ((html == null) && (htmlLoader != null)) {
+            html = htmlLoader.get();
+            htmlLoader = null;
+        }
         return html;
     }
 
     public void setHtml(String html) {
         this.html = html;
+        this.htmlLoader = null;
+    }
+
+    /**
+     * Sets a function which decodes the HTML of the page. It is only called the first time
+     * {@link #getHtml()} is called, so the HTML is not decoded for crawlers which never use it.
+     */
+    public void setHtmlLoader(Supplier<String> htmlLoader) {
+        this.html = null;
+        this.htmlLoader = htmlLoader;
     }
 
     public String getText() {
+        if ((text == null) && (textLoader != null)) {
+            text = textLoader.get();
+            textLoader = null;
+        }
         return text;
     }
 
     public void setText(String text) {
         this.text = text;
+        this.textLoader = null;
+    }
+
+    /**
+     * Sets a function which extracts the text of the page. It is only called the first time
+     * {@link #getText()} is called.
+     */
+    public void setTextLoader(Supplier<String> textLoader) {
+        this.text = null;
+        this.textLoader = textLoader;
     }
 
     public String getTitle() {
@@ -80,7 +111,7 @@ public class HtmlParseData implements ParseData {
 
     @Override
     public String toString() {
-        return text;
+        return getText();
     }
 
     public void setContentCharset(String contentCharset) {
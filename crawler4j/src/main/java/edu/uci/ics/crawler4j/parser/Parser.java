@@ -17,6 +17,11 @@
 
 package edu.uci.ics.crawler4j.parser;
 
+import java.nio.charset.Charset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 import org.apache.tika.language.LanguageIdentifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,13 +46,18 @@ public class Parser {
 
     private final Net net;
 
+    /**
+     * The pool pages are parsed in when they are parsed asynchronously.
+     */
+    private final ForkJoinPool parserPool;
+
     @Deprecated
     public Parser(CrawlConfig config) throws IllegalAccessException, InstantiationException {
         this(config, new TikaHtmlParser(config, null));
     }
 
     public Parser(CrawlConfig config, TLDList tldList) throws IllegalAccessException, InstantiationException {
-        this(config, new TikaHtmlParser(config, tldList), tldList);
+        this(config, newHtmlParser(config, tldList), tldList);
     }
 
     @Deprecated
@@ -59,6 +69,20 @@ public class Parser {
         this.config = config;
         this.htmlContentParser = htmlParser;
         this.net = new Net(config, tldList);
+
+        int numberOfParserThreads = config.getNumberOfParserThreads();
+        if (numberOfParserThreads <= 0) {
+            numberOfParserThreads = Runtime.getRuntime().availableProcessors();
+        }
+        this.parserPool = new ForkJoinPool(numberOfParserThreads);
+    }
+
+    private static HtmlParser newHtmlParser(CrawlConfig config, TLDList tldList)
+        throws IllegalAccessException, InstantiationException {
+        if (config.isFastHtmlParsing()) {
+            return new FastHtmlParser(config, tldList);
+        }
+        return new TikaHtmlParser(config, tldList);
     }
 
     public void parse(Page page, String contextURL) throws NotAllowedContentException, ParseException {
@@ -89,12 +113,7 @@ public class Parser {
         } else if (Util.hasCssTextContent(page.getContentType())) { // text/css
             try {
                 CssParseData parseData = new CssParseData();
-                if (page.getContentCharset() == null) {
-                    parseData.setTextContent(new String(page.getContentData()));
-                } else {
-                    parseData.setTextContent(
-                        new String(page.getContentData(), page.getContentCharset()));
-                }
+                parseData.setTextContent(page.getContentAsString(getCharset(page)));
                 parseData.setOutgoingUrls(page.getWebURL());
                 page.setParseData(parseData);
             } catch (Exception e) {
@@ -104,12 +123,7 @@ public class Parser {
         } else if (Util.hasPlainTextContent(page.getContentType())) { // plain Text
             try {
                 TextParseData parseData = new TextParseData();
-                if (page.getContentCharset() == null) {
-                    parseData.setTextContent(new String(page.getContentData()));
-                } else {
-                    parseData.setTextContent(
-                        new String(page.getContentData(), page.getContentCharset()));
-                }
+                parseData.setTextContent(page.getContentAsString(getCharset(page)));
                 parseData.setOutgoingUrls(net.extractUrls(parseData.getTextContent()));
                 page.setParseData(parseData);
             } catch (Exception e) {
@@ -124,12 +138,53 @@ public class Parser {
                 page.setContentCharset(parsedData.getContentCharset());
             }
 
-            // Please note that identifying language takes less than 10 milliseconds
-            LanguageIdentifier languageIdentifier = new LanguageIdentifier(parsedData.getText());
-            page.setLanguage(languageIdentifier.getLanguage());
+            // The language is only identified if it is asked for, as it needs the whole text
+            page.setLanguageLoader(() -> new LanguageIdentifier(parsedData.getText()).getLanguage());
 
             page.setParseData(parsedData);
 
         }
     }
+
+    /**
+     * Parses the page in the pool of parser threads of this parser, which has
+     * {@link CrawlConfig#getNumberOfParserThreads()} threads.
+     *
+     * @return a future completed with the page once it is parsed, or completed exceptionally with
+     * the {@link ParseException} or {@link NotAllowedContentException} parsing it threw
+     */
+    public CompletableFuture<Page> parseAsync(Page page, String contextURL) {
+        return parseAsync(page, contextURL, parserPool);
+    }
+
+    /**
+     * Parses the page in the given executor.
+     *
+     * @return a future completed with the page once it is parsed, or completed exceptionally with
+     * the {@link ParseException} or {@link NotAllowedContentException} parsing it threw
+     */
+    public CompletableFuture<Page> parseAsync(Page page, String contextURL, Executor executor) {
+        CompletableFuture<Page> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                parse(page, contextURL);
+                result.complete(page);
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Stops the pool of parser threads, after the pages already submitted are parsed.
+     */
+    public void shutDown() {
+        parserPool.shutdown();
+    }
+
+    private static Charset getCharset(Page page) {
+        String charsetName = page.getContentCharset();
+        return (charsetName == null) ? Charset.defaultCharset() : Charset.forName(charsetName);
+    }
 }
@@ -1,11 +1,13 @@
 package edu.uci.ics.crawler4j.parser;
 
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.tika.metadata.DublinCore;
@@ -29,30 +31,37 @@ public class TikaHtmlParser implements edu.uci.ics.crawler4j.parser.HtmlParser {
     private final CrawlConfig config;
     private final TLDList tldList;
 
-    private final HtmlParser htmlParser;
-    private final ParseContext parseContext;
+    /**
+     * Tika parsers and parse contexts are not shared between threads, every thread parsing pages
+     * has its own ones.
+     */
+    private final ThreadLocal<HtmlParser> htmlParser = ThreadLocal.withInitial(HtmlParser::new);
+    private final ThreadLocal<ParseContext> parseContext;
 
     public TikaHtmlParser(CrawlConfig config, TLDList tldList) throws InstantiationException, IllegalAccessException {
         this.config = config;
         this.tldList = tldList;
 
-        htmlParser = new HtmlParser();
-        parseContext = new ParseContext();
-        parseContext.set(HtmlMapper.class, AllTagMapper.class.newInstance());
+        HtmlMapper htmlMapper = AllTagMapper.class.newInstance();
+        parseContext = ThreadLocal.withInitial(() -> {
+            ParseContext context = new ParseContext();
+            context.set(HtmlMapper.class, htmlMapper);
+            return context;
+        });
     }
 
     public HtmlParseData parse(Page page, String contextURL) throws ParseException {
         HtmlParseData parsedData = new HtmlParseData();
 
-        HtmlContentHandler contentHandler = new HtmlContentHandler();
+        HtmlContentHandler contentHandler = new HtmlContentHandler(!config.isLazyHtmlParsing());
         Metadata metadata = new Metadata();
 
         if (page.getContentType() != null) {
             metadata.add(Metadata.CONTENT_TYPE, page.getContentType());
         }
 
-        try (InputStream inputStream = new ByteArrayInputStream(page.getContentData())) {
-            htmlParser.parse(inputStream, contentHandler, metadata, parseContext);
+        try (InputStream inputStream = page.getContentStream()) {
+            htmlParser.get().parse(inputStream, contentHandler, metadata, parseContext.get());
         } catch (Exception e) {
             logger.error("{}, while parsing: {}", e.getMessage(), page.getWebURL().getURL());
             throw new ParseException("could not parse [" + page.getWebURL().getURL() + "]", e);
@@ -61,19 +70,27 @@ public class TikaHtmlParser implements edu.uci.ics.crawler4j.parser.HtmlParser {
         String contentCharset = chooseEncoding(page, metadata);
         parsedData.setContentCharset(contentCharset);
 
-        parsedData.setText(contentHandler.getBodyText().trim());
+        if (config.isLazyHtmlParsing()) {
+            parsedData.setTextLoader(() -> parseText(page));
+        } else {
+            parsedData.setText(contentHandler.getBodyText().trim());
+        }
         parsedData.setTitle(metadata.get(DublinCore.TITLE));
         parsedData.setMetaTags(contentHandler.getMetaTags());
 
         try {
-            Set<WebURL> outgoingUrls = getOutgoingUrls(contextURL, contentHandler, contentCharset);
+            Set<WebURL> outgoingUrls = getOutgoingUrls(contextURL, contentHandler.getBaseUrl(),
+                                                       contentHandler.getOutgoingUrls(), contentCharset);
             parsedData.setOutgoingUrls(outgoingUrls);
 
-            if (page.getContentCharset() == null) {
-                parsedData.setHtml(new String(page.getContentData()));
-            } else {
-                parsedData.setHtml(new String(page.getContentData(), page.getContentCharset()));
-            }
+            Charset htmlCharset = getCharset(page.getContentCharset());
+            parsedData.setHtmlLoader(() -> {
+                try {
+                    return page.getContentAsString(htmlCharset);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
 
             return parsedData;
         } catch (UnsupportedEncodingException e) {
@@ -83,17 +100,39 @@ public class TikaHtmlParser implements edu.uci.ics.crawler4j.parser.HtmlParser {
 
     }
 
-    private Set<WebURL> getOutgoingUrls(String contextURL, HtmlContentHandler contentHandler, String contentCharset)
-            throws UnsupportedEncodingException {
+    /**
+     * Parses the page again to extract its text, which is not collected when parsing lazily.
+     */
+    String parseText(Page page) {
+        HtmlContentHandler contentHandler = new HtmlContentHandler(true);
+        Metadata metadata = new Metadata();
+        if (page.getContentType() != null) {
+            metadata.add(Metadata.CONTENT_TYPE, page.getContentType());
+        }
+        // Opened outside of the try, so reading a released content is not taken for a parse error
+        InputStream contentStream = page.getContentStream();
+        try (InputStream inputStream = contentStream) {
+            htmlParser.get().parse(inputStream, contentHandler, metadata, parseContext.get());
+        } catch (Exception e) {
+            logger.warn("{}, while extracting the text of: {}", e.getMessage(), page.getWebURL().getURL());
+        }
+        return contentHandler.getBodyText().trim();
+    }
+
+    /**
+     * Resolves and canonicalizes the extracted links of a page, skipping javascript and mailto
+     * links.
+     */
+    Set<WebURL> getOutgoingUrls(String contextURL, String baseURL, List<ExtractedUrlAnchorPair> urlAnchorPairs,
+                                String contentCharset) throws UnsupportedEncodingException {
         Set<WebURL> outgoingUrls = new HashSet<>();
 
-        String baseURL = contentHandler.getBaseUrl();
         if (baseURL != null) {
             contextURL = baseURL;
         }
 
         int urlCount = 0;
-        for (ExtractedUrlAnchorPair urlAnchorPair : contentHandler.getOutgoingUrls()) {
+        for (ExtractedUrlAnchorPair urlAnchorPair : urlAnchorPairs) {
 
             String href = urlAnchorPair.getHref();
             if ((href == null) || href.trim().isEmpty()) {
@@ -125,6 +164,21 @@ public class TikaHtmlParser implements edu.uci.ics.crawler4j.parser.HtmlParser {
         return outgoingUrls;
     }
 
+    /**
+     * @return the charset with the given name, or the default charset if the name is null
+     * @throws UnsupportedEncodingException if the charset is not supported
+     */
+    private static Charset getCharset(String charsetName) throws UnsupportedEncodingException {
+        if (charsetName == null) {
+            return Charset.defaultCharset();
+        }
+        try {
+            return Charset.forName(charsetName);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedEncodingException(charsetName);
+        }
+    }
+
     private String chooseEncoding(Page page, Metadata metadata) {
         String pageCharset = page.getContentCharset();
         if (pageCharset == null || pageCharset.isEmpty()) {
@@ -37,12 +37,31 @@ public class HostDirectives {
     private Set<UserAgentDirectives> rules;
 
     private final long timeFetched;
+    private final long expirationDelay;
     private long timeLastAccessed;
     private RobotstxtConfig config;
     private String userAgent;
 
     public HostDirectives(RobotstxtConfig configuration) {
-        timeFetched = System.currentTimeMillis();
+        this(configuration, EXPIRATION_DELAY);
+    }
+
+    /**
+     * @param expirationDelay Number of milliseconds after which the directives have to be
+     *                        fetched again
+     */
+    HostDirectives(RobotstxtConfig configuration, long expirationDelay) {
+        this(configuration, System.currentTimeMillis(), expirationDelay);
+    }
+
+    /**
+     * @param timeFetched Time the robots.txt was fetched at, in milliseconds since the epoch
+     * @param expirationDelay Number of milliseconds after which the directives have to be
+     *                        fetched again
+     */
+    HostDirectives(RobotstxtConfig configuration, long timeFetched, long expirationDelay) {
+        this.timeFetched = timeFetched;
+        this.expirationDelay = expirationDelay;
         config = configuration;
         userAgent = config.getUserAgentName().toLowerCase();
         rules = new TreeSet<UserAgentDirectives>(
@@ -50,7 +69,15 @@ public class HostDirectives {
     }
 
     public boolean needsRefetch() {
-        return ((System.currentTimeMillis() - timeFetched) > EXPIRATION_DELAY);
+        return ((System.currentTimeMillis() - timeFetched) > expirationDelay);
+    }
+
+    long getTimeFetched() {
+        return timeFetched;
+    }
+
+    long getExpirationDelay() {
+        return expirationDelay;
     }
 
     /**
@@ -136,6 +163,21 @@ public class HostDirectives {
         return result;
     }
 
+    /**
+     * @return the "Crawl-delay" in seconds of the rules which apply to the configured user agent,
+     * or null if they do not have one
+     */
+    public Double getCrawlDelay() {
+        // The rules are sorted on match, so only the first one can apply
+        if (!rules.isEmpty()) {
+            UserAgentDirectives ua = rules.iterator().next();
+            if (ua.match(userAgent) > 0) {
+                return ua.getCrawlDelay();
+            }
+        }
+        return null;
+    }
+
     /**
      * Store set of directives
      *
@@ -1,5 +1,6 @@
 package edu.uci.ics.crawler4j.robotstxt;
 
+import java.util.Arrays;
 import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
@@ -8,9 +9,25 @@ import org.slf4j.LoggerFactory;
 public class PathRule {
     protected static final Logger logger = LoggerFactory.getLogger(PathRule.class);
 
+    /** Kinds of the elements a pattern is compiled to */
+    static final byte LITERAL = 0;
+    static final byte ANY_CHAR = 1;
+    static final byte ANY_CHARS = 2;
+    static final byte END = 3;
+
     public int type;
     public Pattern pattern;
 
+    /**
+     * The pattern compiled to a sequence of elements: literal characters, which are in
+     * {@link #chars}, any single character, any sequence of characters and the end of the path.
+     */
+    final byte[] kinds;
+    final char[] chars;
+
+    /** Number of literal characters the pattern starts with */
+    final int prefixLength;
+
     /**
      * Match a pattern defined in a robots.txt file to a path
      * Following the pattern definition as stated on:
@@ -117,6 +134,55 @@ public class PathRule {
     public PathRule(int type, String pattern) {
         this.type = type;
         this.pattern = robotsPatternToRegexp(pattern);
+
+        // A pattern has at most two elements per character and the trailing sequence of any chars
+        byte[] kindBuf = new byte[2 * pattern.length() + 1];
+        char[] charBuf = new char[kindBuf.length];
+        int length = 0;
+        boolean terminated = false;
+        if (pattern.isEmpty()) {
+            kindBuf[length++] = END;
+            terminated = true;
+        }
+        // The same elements robotsPatternToRegexp() converts the pattern to
+        for (int pos = 0; pos < pattern.length(); ++pos) {
+            char ch = pattern.charAt(pos);
+            if (ch == '\\') {
+                char nch = pos < pattern.length() - 1 ? pattern.charAt(pos + 1) : 0;
+                if (nch == '*') {
+                    ch = nch;
+                    ++pos;
+                }
+                charBuf[length] = ch;
+                kindBuf[length++] = LITERAL;
+            } else if (ch == '*') {
+                if (pos == pattern.length() - 1) {
+                    // A terminating * may match 0 or more characters
+                    terminated = true;
+                } else {
+                    // A non-terminating * may match 1 or more characters
+                    kindBuf[length++] = ANY_CHAR;
+                }
+                kindBuf[length++] = ANY_CHARS;
+            } else if (ch == '$' && pos == pattern.length() - 1) {
+                kindBuf[length++] = END;
+                terminated = true;
+            } else {
+                charBuf[length] = ch;
+                kindBuf[length++] = LITERAL;
+            }
+        }
+        if (!terminated) {
+            kindBuf[length++] = ANY_CHARS;
+        }
+        kinds = Arrays.copyOf(kindBuf, length);
+        chars = Arrays.copyOf(charBuf, length);
+
+        int literals = 0;
+        while ((literals < length) && (kinds[literals] == LITERAL)) {
+            literals++;
+        }
+        prefixLength = literals;
     }
 
     /**
@@ -126,6 +192,62 @@ public class PathRule {
      * @return True when the path matches, false when it does not
      */
     public boolean matches(String path) {
-        return this.pattern.matcher(path).matches();
+        if (path.length() < prefixLength) {
+            return false;
+        }
+        for (int i = 0; i < prefixLength; i++) {
+            if (path.charAt(i) != chars[i]) {
+                return false;
+            }
+        }
+        return matches(path, prefixLength);
+    }
+
+    /**
+     * Check if the specified path matches this rule, knowing that it starts with the first
+     * characters of the pattern
+     *
+     * @param path The path to match with this pattern
+     * @param start The number of literal characters at the start of the pattern the path is
+     *              known to start with
+     * @return True when the path matches, false when it does not
+     */
+    boolean matches(String path, int start) {
+        int element = start;
+        int pos = start;
+        // Position of the last sequence of any characters and of the path when it was reached, to
+        // backtrack to when the rest does not match
+        int lastAnyChars = -1;
+        int lastAnyCharsPos = -1;
+        while (true) {
+            if (element < kinds.length) {
+                byte kind = kinds[element];
+                if (kind == ANY_CHARS) {
+                    if (element == kinds.length - 1) {
+                        return true;
+                    }
+                    lastAnyChars = element++;
+                    lastAnyCharsPos = pos;
+                    continue;
+                }
+                if (kind == END) {
+                    if (pos == path.length()) {
+                        return true;
+                    }
+                } else if ((pos < path.length()) &&
+                           ((kind == ANY_CHAR) || (chars[element] == path.charAt(pos)))) {
+                    element++;
+                    pos++;
+                    continue;
+                }
+            } else if (pos == path.length()) {
+                return true;
+            }
+            if ((lastAnyChars == -1) || (lastAnyCharsPos >= path.length())) {
+                return false;
+            }
+            element = lastAnyChars + 1;
+            pos = ++lastAnyCharsPos;
+        }
     }
 }
@@ -0,0 +1,91 @@
+package edu.uci.ics.crawler4j.robotstxt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import edu.uci.ics.crawler4j.util.CharTrieNode;
+
+/**
+ * The path rules of a set of directives compiled for matching paths against all of them at
+ * once. The rules are stored in a trie of the literal characters they start with, so only the
+ * rules whose literal start is a prefix of the path are tried, most specific first, and the rest
+ * of their pattern is matched without regular expressions.
+ *
+ * The verdict is the one of the most specific matching rule, as defined by
+ * {@link UserAgentDirectives#checkAccess(String, String)}: the rule with the longest pattern.
+ */
+final class PathRuleMatcher {
+
+    /**
+     * Most specific rules first: longest regular expression first, then in alphabetical order of
+     * the regular expressions and allowing rules before disallowing ones.
+     */
+    static final Comparator<PathRule> SPECIFICITY = Comparator
+        .comparingInt((PathRule rule) -> -rule.pattern.toString().length())
+        .thenComparing(rule -> rule.pattern.toString())
+        .thenComparingInt(rule -> rule.type);
+
+    private static final int[] NO_RULES = new int[0];
+
+    private final PathRule[] rules;
+    /**
+     * The nodes of the trie hold the indexes of the rules whose literal start ends at them, or
+     * null.
+     */
+    private final CharTrieNode<int[]> root = new CharTrieNode<>();
+
+    PathRuleMatcher(Collection<PathRule> pathRules) {
+        List<PathRule> sorted = new ArrayList<>(pathRules);
+        sorted.sort(SPECIFICITY);
+        rules = sorted.toArray(new PathRule[0]);
+        for (int i = 0; i < rules.length; i++) {
+            CharTrieNode<int[]> node = root;
+            for (int j = 0; j < rules[i].prefixLength; j++) {
+                node = node.getOrAddChild(rules[i].chars[j]);
+            }
+            addRule(node, i);
+        }
+    }
+
+    /**
+     * @param path The path to check
+     * @return The type of the most specific rule matching the path, or
+     *         {@link HostDirectives#UNDEFINED} if none does
+     */
+    int checkAccess(String path) {
+        int best = rules.length;
+        CharTrieNode<int[]> node = root;
+        int depth = 0;
+        while (node != null) {
+            // The rules of a node are sorted, so only the first matching one counts
+            int[] nodeRules = (node.getValue() == null) ? NO_RULES : node.getValue();
+            for (int rule : nodeRules) {
+                if (rule >= best) {
+                    break;
+                }
+                if (rules[rule].matches(path, depth)) {
+                    best = rule;
+                    break;
+                }
+            }
+            if (depth == path.length()) {
+                break;
+            }
+            node = node.getChild(path.charAt(depth++));
+        }
+        return (best < rules.length) ? rules[best].type : HostDirectives.UNDEFINED;
+    }
+
+    /**
+     * Adds a rule to a node, the rule is less specific than the rules already added.
+     */
+    private static void addRule(CharTrieNode<int[]> node, int rule) {
+        int[] rules = node.getValue();
+        rules = (rules == null) ? new int[1] : Arrays.copyOf(rules, rules.length + 1);
+        rules[rules.length - 1] = rule;
+        node.setValue(rules);
+    }
+}
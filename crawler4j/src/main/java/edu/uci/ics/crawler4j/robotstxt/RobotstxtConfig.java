@@ -46,6 +46,20 @@ public class RobotstxtConfig {
      */
     private int cacheSize = 500;
 
+    /**
+     * Number of seconds the robots.txt of a host is considered missing, and everything allowed,
+     * when the host could not be reached or answered with a server error. It is fetched again
+     * after that time instead of after a day.
+     */
+    private int unreachableCacheSeconds = 3600;
+
+    /**
+     * Number of threads fetching the robots.txt of the hosts discovered in the links of pages in
+     * the background, while their URLs wait in the frontier. With 0 they are fetched by the
+     * crawler threads, when a URL of a new host is checked.
+     */
+    private int prefetchThreads = 4;
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -70,6 +84,22 @@ public class RobotstxtConfig {
         this.cacheSize = cacheSize;
     }
 
+    public int getUnreachableCacheSeconds() {
+        return unreachableCacheSeconds;
+    }
+
+    public void setUnreachableCacheSeconds(int unreachableCacheSeconds) {
+        this.unreachableCacheSeconds = unreachableCacheSeconds;
+    }
+
+    public int getPrefetchThreads() {
+        return prefetchThreads;
+    }
+
+    public void setPrefetchThreads(int prefetchThreads) {
+        this.prefetchThreads = prefetchThreads;
+    }
+
     public void setIgnoreUADiscrimination(boolean ignore) {
         this.ignoreUADiscrimination = ignore;
     }
@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.robotstxt;
+
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.OperationStatus;
+
+/**
+ * This class stores the robots.txt files fetched for the hosts, with the time they were fetched
+ * at, so the directives of a host evicted from the cache of {@link RobotstxtServer}, or of a
+ * resumed crawl, are parsed again instead of being fetched again until they expire.
+ *
+ * The content of the robots.txt is stored rather than the parsed directives, it is smaller and
+ * does not depend on how they are represented.
+ */
+public class RobotstxtDB {
+    private static final Logger logger = LoggerFactory.getLogger(RobotstxtDB.class);
+
+    private static final String DATABASE_NAME = "RobotsTxt";
+
+    private final Database robotstxtDB;
+    private final RobotstxtConfig config;
+
+    public RobotstxtDB(Environment env, RobotstxtConfig config) {
+        this.config = config;
+        boolean transactional = env.getConfig().getTransactional();
+        DatabaseConfig dbConfig = new DatabaseConfig();
+        dbConfig.setAllowCreate(true);
+        dbConfig.setTransactional(transactional);
+        dbConfig.setDeferredWrite(!transactional);
+        robotstxtDB = env.openDatabase(null, DATABASE_NAME, dbConfig);
+    }
+
+    /**
+     * @return the directives of the stored robots.txt of the host, which may be expired, or null
+     * if none is stored
+     */
+    public HostDirectives get(String host) {
+        DatabaseEntry value = new DatabaseEntry();
+        OperationStatus result = robotstxtDB.get(null, getKey(host), value, null);
+        if (result != OperationStatus.SUCCESS) {
+            return null;
+        }
+        TupleInput input = new TupleInput(value.getData());
+        long timeFetched = input.readLong();
+        long expirationDelay = input.readLong();
+        String content = input.readString();
+        return RobotstxtParser.parse(content, new HostDirectives(config, timeFetched, expirationDelay));
+    }
+
+    /**
+     * Stores the robots.txt of a host.
+     *
+     * @param content the robots.txt, empty if the host does not have one
+     * @param directives the directives parsed from it, with the time they were fetched at
+     */
+    public void put(String host, String content, HostDirectives directives) {
+        TupleOutput output = new TupleOutput();
+        output.writeLong(directives.getTimeFetched());
+        output.writeLong(directives.getExpirationDelay());
+        output.writeString(content);
+        robotstxtDB.put(null, getKey(host), new DatabaseEntry(output.getBufferBytes(), 0,
+                                                              output.getBufferLength()));
+    }
+
+    public long getLength() {
+        return robotstxtDB.count();
+    }
+
+    public void close() {
+        try {
+            robotstxtDB.close();
+        } catch (DatabaseException e) {
+            logger.error("Exception thrown while trying to close robotstxtDB", e);
+        }
+    }
+
+    private static DatabaseEntry getKey(String host) {
+        return new DatabaseEntry(host.getBytes(StandardCharsets.UTF_8));
+    }
+}
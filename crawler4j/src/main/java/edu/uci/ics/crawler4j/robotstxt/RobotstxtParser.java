@@ -38,7 +38,13 @@ public class RobotstxtParser {
         Arrays.asList("allow", "disallow", "user-agent", "crawl-delay", "host", "sitemap"));
 
     public static HostDirectives parse(String content, RobotstxtConfig config) {
-        HostDirectives directives = new HostDirectives(config);
+        return parse(content, new HostDirectives(config));
+    }
+
+    /**
+     * Parses a robots.txt into the given directives, which are empty.
+     */
+    static HostDirectives parse(String content, HostDirectives directives) {
         StringTokenizer st = new StringTokenizer(content, "\n\r");
 
         Set<String> userAgents = new HashSet<String>();
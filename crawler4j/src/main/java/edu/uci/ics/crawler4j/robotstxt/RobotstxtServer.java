@@ -21,14 +21,26 @@ import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.UnknownHostException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpStatus;
 import org.apache.http.NoHttpResponseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.sleepycat.je.Environment;
+
 import edu.uci.ics.crawler4j.crawler.CrawlConfig;
 import edu.uci.ics.crawler4j.crawler.Page;
 import edu.uci.ics.crawler4j.crawler.exceptions.PageBiggerThanMaxSizeException;
@@ -44,16 +56,42 @@ public class RobotstxtServer {
 
     private static final Logger logger = LoggerFactory.getLogger(RobotstxtServer.class);
 
+    /**
+     * How long shutting down waits for the robots.txt files being prefetched.
+     */
+    private static final long PREFETCH_TERMINATION_SECONDS = 30;
+
     protected RobotstxtConfig config;
 
     protected CrawlConfig crawlConfig;
 
-    protected final Map<String, HostDirectives> host2directivesCache = new HashMap<>();
+    /**
+     * Directives of the hosts by their name. When several threads need the directives of a host
+     * which are not cached, only one of them fetches its robots.txt and the others wait for it.
+     */
+    protected final Cache<String, HostDirectives> host2directivesCache;
 
     protected PageFetcher pageFetcher;
 
+    /**
+     * The robots.txt files fetched, which are looked up before fetching one, or null if they are
+     * only cached in memory.
+     */
+    protected volatile RobotstxtDB robotstxtDB;
+
     private final int maxBytes;
 
+    /**
+     * The threads robots.txt files are prefetched in, or null if they are only fetched when
+     * needed.
+     */
+    private final ExecutorService prefetchExecutor;
+
+    /**
+     * The prefetches in progress by host, so a host is only prefetched once at a time.
+     */
+    private final ConcurrentMap<String, CompletableFuture<Void>> prefetches = new ConcurrentHashMap<>();
+
     public RobotstxtServer(RobotstxtConfig config, PageFetcher pageFetcher) {
         this(config, pageFetcher, 16384);
     }
@@ -62,6 +100,16 @@ public class RobotstxtServer {
         this.config = config;
         this.pageFetcher = pageFetcher;
         this.maxBytes = maxBytes;
+        this.host2directivesCache = CacheBuilder.newBuilder().maximumSize(config.getCacheSize()).build();
+        if (config.getPrefetchThreads() > 0) {
+            this.prefetchExecutor = Executors.newFixedThreadPool(config.getPrefetchThreads(), runnable -> {
+                Thread thread = new Thread(runnable, "Robotstxt prefetcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.prefetchExecutor = null;
+        }
     }
 
     private static String getHost(URL url) {
@@ -80,27 +128,170 @@ public class RobotstxtServer {
         }
         try {
             URL url = new URL(webURL.getURL());
-            String host = getHost(url);
-            String path = url.getPath();
+            return getDirectives(url).allows(url.getPath());
+        } catch (MalformedURLException e) {
+            logger.error("Bad URL in Robots.txt: " + webURL.getURL(), e);
+        }
 
-            HostDirectives directives = host2directivesCache.get(host);
+        logger.warn("RobotstxtServer: default: allow", webURL.getURL());
+        return true;
+    }
 
-            if (directives != null && directives.needsRefetch()) {
-                synchronized (host2directivesCache) {
-                    host2directivesCache.remove(host);
-                    directives = null;
+    /**
+     * @return true if the robots.txt of new hosts should be fetched with {@link #prefetch(WebURL)}
+     * rather than by {@link #allows(WebURL)}
+     */
+    public boolean isPrefetching() {
+        return config.isEnabled() && (prefetchExecutor != null);
+    }
+
+    /**
+     * @return true if {@link #allows(WebURL)} can check the URL without fetching anything, because
+     * the directives of its host are cached or robots.txt files are not obeyed
+     */
+    public boolean hasDirectives(WebURL webURL) {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        try {
+            HostDirectives directives = host2directivesCache.getIfPresent(getHost(new URL(webURL.getURL())));
+            return (directives != null) && !directives.needsRefetch();
+        } catch (MalformedURLException e) {
+            // Bad URLs are allowed without fetching anything
+            return true;
+        }
+    }
+
+    /**
+     * Fetches the robots.txt of the host of the URL in the background, unless its directives are
+     * cached already. Prefetching a host which is being prefetched returns the pending future.
+     *
+     * @return a future completed once the directives of the host are cached, or completed
+     * exceptionally with the exception fetching them threw
+     */
+    public CompletableFuture<Void> prefetch(WebURL webURL) {
+        if (hasDirectives(webURL)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        URL url;
+        try {
+            url = new URL(webURL.getURL());
+        } catch (MalformedURLException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String host = getHost(url);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        CompletableFuture<Void> pending = prefetches.putIfAbsent(host, future);
+        if (pending != null) {
+            return pending;
+        }
+        Runnable fetch = () -> {
+            try {
+                getDirectives(url);
+                prefetches.remove(host, future);
+                future.complete(null);
+            } catch (Exception e) {
+                prefetches.remove(host, future);
+                future.completeExceptionally(e);
+            }
+        };
+        if (prefetchExecutor == null) {
+            fetch.run();
+        } else {
+            try {
+                prefetchExecutor.execute(fetch);
+            } catch (RuntimeException e) {
+                prefetches.remove(host, future);
+                future.completeExceptionally(e);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Opens the database the fetched robots.txt files are stored in, in the environment of the
+     * crawl, so the directives of hosts evicted from the cache or of a resumed crawl are not
+     * fetched again until they expire.
+     */
+    public void openDatabase(Environment env) {
+        robotstxtDB = new RobotstxtDB(env, config);
+    }
+
+    /**
+     * Stops the prefetching threads, dropping the robots.txt files which are not being fetched yet
+     * and waiting for the ones being fetched, and closes the database of robots.txt files. It is
+     * called before the frontier is closed, so no prefetch completes on a closed frontier.
+     */
+    public void shutDown() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+            try {
+                if (!prefetchExecutor.awaitTermination(PREFETCH_TERMINATION_SECONDS, TimeUnit.SECONDS)) {
+                    logger.warn("The robots.txt prefetching threads did not stop within {} seconds",
+                                PREFETCH_TERMINATION_SECONDS);
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-            if (directives == null) {
-                directives = fetchDirectives(url);
+        }
+        RobotstxtDB db = robotstxtDB;
+        if (db != null) {
+            robotstxtDB = null;
+            db.close();
+        }
+    }
+
+    /**
+     * @return the directives of the host of the URL, from the cache or fetched if they are not
+     * cached or are expired
+     */
+    protected HostDirectives getDirectives(URL url) throws IOException, InterruptedException {
+        String host = getHost(url);
+        HostDirectives directives = host2directivesCache.getIfPresent(host);
+        if ((directives != null) && directives.needsRefetch()) {
+            host2directivesCache.asMap().remove(host, directives);
+            directives = null;
+        }
+        if (directives == null) {
+            try {
+                directives = host2directivesCache.get(host, () -> loadDirectives(host, url));
+            } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+                Throwable cause = e.getCause();
+                Throwables.throwIfInstanceOf(cause, IOException.class);
+                Throwables.throwIfInstanceOf(cause, InterruptedException.class);
+                Throwables.throwIfUnchecked(cause);
+                throw new IllegalStateException(cause);
             }
-            return directives.allows(path);
-        } catch (MalformedURLException e) {
-            logger.error("Bad URL in Robots.txt: " + webURL.getURL(), e);
         }
+        return directives;
+    }
 
-        logger.warn("RobotstxtServer: default: allow", webURL.getURL());
-        return true;
+    /**
+     * @return the directives of the host from the database if they are stored and not expired,
+     * or fetched otherwise
+     */
+    private HostDirectives loadDirectives(String host, URL url) throws IOException, InterruptedException {
+        HostDirectives directives = null;
+        RobotstxtDB db = robotstxtDB;
+        if (db != null) {
+            try {
+                directives = db.get(host);
+                if ((directives != null) && directives.needsRefetch()) {
+                    directives = null;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Error while reading the stored robots.txt of {}: {}", host, e.getMessage());
+            }
+        }
+        if (directives == null) {
+            directives = fetchDirectives(url);
+        }
+        if ((pageFetcher != null) && (pageFetcher.getPolitenessScheduler() != null)) {
+            Double crawlDelay = directives.getCrawlDelay();
+            pageFetcher.getPolitenessScheduler().setCrawlDelay(
+                host, (crawlDelay == null) ? 0 : (long) (crawlDelay * 1000));
+        }
+        return directives;
     }
 
     private HostDirectives fetchDirectives(URL url) throws IOException, InterruptedException {
@@ -111,6 +302,8 @@ public class RobotstxtServer {
         String proto = url.getProtocol();
         robotsTxtUrl.setURL(proto + "://" + host + port + "/robots.txt");
         HostDirectives directives = null;
+        String content = null;
+        boolean unreachable = false;
         PageFetchResult fetchResult = null;
         try {
             for (int redir = 0; redir < 3; ++redir) {
@@ -138,7 +331,6 @@ public class RobotstxtServer {
                 // https://developers.google.com/search/reference/robots_txt
                 fetchResult.fetchContent(page, 500 * 1024);
                 if (Util.hasPlainTextContent(page.getContentType())) {
-                    String content;
                     if (page.getContentCharset() == null) {
                         content = new String(page.getContentData());
                     } else {
@@ -149,7 +341,7 @@ public class RobotstxtServer {
                                .contains(
                                    "html")) { // TODO This one should be upgraded to remove all
                     // html tags
-                    String content = new String(page.getContentData());
+                    content = new String(page.getContentData());
                     directives = RobotstxtParser.parse(content, config);
                 } else {
                     logger.warn(
@@ -159,17 +351,20 @@ public class RobotstxtServer {
             } else {
                 logger.debug("Can't read this robots.txt: {}  as it's status code is {}",
                              robotsTxtUrl.getURL(), fetchResult.getStatusCode());
+                unreachable = fetchResult.getStatusCode() >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
             }
         } catch (SocketException | UnknownHostException | SocketTimeoutException |
             NoHttpResponseException se) {
             // No logging here, as it just means that robots.txt doesn't exist on this server
             // which is perfectly ok
             logger.trace("robots.txt probably does not exist.", se);
+            unreachable = true;
         } catch (PageBiggerThanMaxSizeException pbtms) {
             logger.error("Error occurred while fetching (robots) url: {}, {}",
                          robotsTxtUrl.getURL(), pbtms.getMessage());
         } catch (IOException e) {
             logger.error("Error occurred while fetching (robots) url: " + robotsTxtUrl.getURL(), e);
+            unreachable = true;
         } catch (InterruptedException | RuntimeException e) {
             if (crawlConfig.isHaltOnError()) {
                 throw e;
@@ -184,22 +379,21 @@ public class RobotstxtServer {
 
         if (directives == null) {
             // We still need to have this object to keep track of the time we fetched it
-            directives = new HostDirectives(config);
-        }
-        synchronized (host2directivesCache) {
-            if (host2directivesCache.size() == config.getCacheSize()) {
-                String minHost = null;
-                long minAccessTime = Long.MAX_VALUE;
-                for (Map.Entry<String, HostDirectives> entry : host2directivesCache.entrySet()) {
-                    long entryAccessTime = entry.getValue().getLastAccessTime();
-                    if (entryAccessTime < minAccessTime) {
-                        minAccessTime = entryAccessTime;
-                        minHost = entry.getKey();
-                    }
-                }
-                host2directivesCache.remove(minHost);
+            content = "";
+            if (unreachable) {
+                directives = new HostDirectives(config,
+                                                TimeUnit.SECONDS.toMillis(config.getUnreachableCacheSeconds()));
+            } else {
+                directives = new HostDirectives(config);
+            }
+        }
+        RobotstxtDB db = robotstxtDB;
+        if (db != null) {
+            try {
+                db.put(host, content, directives);
+            } catch (RuntimeException e) {
+                logger.warn("Error while storing the robots.txt of {}: {}", host, e.getMessage());
             }
-            host2directivesCache.put(host, directives);
         }
         return directives;
     }
@@ -6,7 +6,6 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,51 +24,8 @@ public class UserAgentDirectives {
     private Double crawlDelay = null;
     private Set<PathRule> pathRules = new HashSet<>();
 
-    /**
-     * Comparator used to order the list of matching path rules in such a way
-     * that the most specific match (= longest) match comes first.
-     */
-    static class PathComparator implements Comparator<PathRule> {
-        /** The path to compare the path rules with */
-        String path;
-
-        /** Initialize with the path */
-        PathComparator(String path) {
-            this.path = path;
-        }
-
-        /**
-         * Compare two paths.
-         * If lhs matches and rhs does not, this will return -1
-         * If rhs matches and lhs does not, this will return 1
-         * If both match or both do not match,, this will return the result of
-         *    a numeric comparison of the length of both patterns, where
-         *    the longest (=most specific) one will come first.
-         */
-        @Override
-        public int compare(PathRule lhs, PathRule rhs) {
-            boolean p1Match = lhs.matches(path);
-            boolean p2Match = rhs.matches(path);
-
-            // Matching patterns come first
-            if (p1Match && !p2Match) {
-                return -1;
-            } else if (p2Match && !p1Match) {
-                return 1;
-            }
-
-            // Most specific pattern first
-            String p1 = lhs.pattern.toString();
-            String p2 = rhs.pattern.toString();
-
-            if (p1.length() != p2.length()) {
-                return Integer.compare(p2.length(), p1.length());
-            }
-
-            // Just order alphabetically if the patterns are of the same length
-            return p1.compareTo(p2);
-        }
-    }
+    /** The path rules compiled for matching, created when they are first checked */
+    private volatile PathRuleMatcher pathRuleMatcher = null;
 
     /**
      * Create a UserAgentDirectives clause
@@ -113,18 +69,13 @@ public class UserAgentDirectives {
             return HostDirectives.UNDEFINED;
         }
 
-        // Order the rules based on their match with the path
-        Set<PathRule> rules = new TreeSet<>(new PathComparator(path));
-        rules.addAll(pathRules);
-
-        // Return the verdict of the best matching rule
-        for (PathRule rule : rules) {
-            if (rule.matches(path)) {
-                return rule.type;
-            }
+        // Return the verdict of the most specific (= longest) matching rule
+        PathRuleMatcher matcher = pathRuleMatcher;
+        if (matcher == null) {
+            matcher = new PathRuleMatcher(pathRules);
+            pathRuleMatcher = matcher;
         }
-
-        return HostDirectives.UNDEFINED;
+        return matcher.checkAccess(path);
     }
 
     public static class UserAgentComparator implements Comparator<UserAgentDirectives> {
@@ -196,8 +147,10 @@ public class UserAgentDirectives {
             this.preferredHost = value;
         } else if (rule.equals("allow")) {
             this.pathRules.add(new PathRule(HostDirectives.ALLOWED, value));
+            this.pathRuleMatcher = null;
         } else if (rule.equals("disallow")) {
             this.pathRules.add(new PathRule(HostDirectives.DISALLOWED, value));
+            this.pathRuleMatcher = null;
         } else {
             logger.error("Invalid key in robots.txt passed to UserAgentRules: {}", rule);
         }
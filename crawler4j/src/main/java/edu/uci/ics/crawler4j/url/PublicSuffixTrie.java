@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.url;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+
+import edu.uci.ics.crawler4j.util.CharTrieNode;
+
+/**
+ * The rules of a public suffix list in the format of
+ * <a href="https://publicsuffix.org/list/public_suffix_list.dat">publicsuffix.org</a>, compiled
+ * into a trie of the characters of the rules from their end. A domain is matched against all the
+ * rules in a single walk from its last character to its first one, without allocating anything,
+ * following the <a href="https://publicsuffix.org/list/">algorithm of publicsuffix.org</a>.
+ */
+public final class PublicSuffixTrie {
+
+    private static final byte RULE = 1;
+    private static final byte WILDCARD = 2;
+    private static final byte EXCEPTION = 4;
+
+    /**
+     * The nodes of the trie hold the flags of the rules ending at them, or null.
+     */
+    private final CharTrieNode<Byte> root = new CharTrieNode<>();
+
+    /**
+     * Compiles the rules of a list.
+     *
+     * @param stream the list, in UTF-8, which is read until its end but not closed
+     */
+    public PublicSuffixTrie(InputStream stream) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            int end = 0;
+            while ((end < line.length()) && !Character.isWhitespace(line.charAt(end))) {
+                end++;
+            }
+            String rule = line.substring(0, end);
+            if (!rule.isEmpty() && !rule.startsWith("//")) {
+                addRule(rule);
+            }
+        }
+    }
+
+    private void addRule(String rule) {
+        byte flag = RULE;
+        if (rule.startsWith("!")) {
+            flag = EXCEPTION;
+            rule = rule.substring(1);
+        } else if (rule.startsWith("*.")) {
+            flag = WILDCARD;
+            rule = rule.substring(2);
+        }
+        add(rule.toLowerCase(), flag);
+        try {
+            String ascii = IDN.toASCII(rule).toLowerCase();
+            if (!ascii.equals(rule.toLowerCase())) {
+                add(ascii, flag);
+            }
+        } catch (IllegalArgumentException e) {
+            // Only the rule as it is written can be matched
+        }
+    }
+
+    private void add(String rule, byte flag) {
+        CharTrieNode<Byte> node = root;
+        for (int i = rule.length() - 1; i >= 0; i--) {
+            node = node.getOrAddChild(rule.charAt(i));
+        }
+        node.setValue((byte) (getFlags(node) | flag));
+    }
+
+    /**
+     * @return {@code true} if the domain is a public suffix, like "com" or "co.uk"
+     */
+    public boolean isPublicSuffix(String domain) {
+        int labels = countLabels(domain);
+        return (labels > 0) && (labels == getPublicSuffixLabels(domain));
+    }
+
+    /**
+     * @return {@code true} if the domain is a registrable domain, one label more than its public
+     * suffix, like "example.com" or "example.co.uk"
+     */
+    public boolean isRegistrable(String domain) {
+        int labels = countLabels(domain);
+        return (labels > 0) && (labels == getPublicSuffixLabels(domain) + 1);
+    }
+
+    /**
+     * @return the number of labels of the public suffix of the domain
+     */
+    private int getPublicSuffixLabels(String domain) {
+        CharTrieNode<Byte> node = root;
+        int labels = 0;
+        int longestRule = 0;
+        int exception = 0;
+        int labelEnd = domain.length();
+        while (labelEnd >= 0) {
+            int labelStart = domain.lastIndexOf('.', labelEnd - 1) + 1;
+            for (int i = labelEnd - 1; (i >= labelStart) && (node != null); i--) {
+                node = node.getChild(Character.toLowerCase(domain.charAt(i)));
+            }
+            labels++;
+            if (node != null) {
+                byte flags = getFlags(node);
+                if (((flags & EXCEPTION) != 0) && (exception == 0)) {
+                    exception = labels;
+                }
+                if ((flags & RULE) != 0) {
+                    longestRule = labels;
+                }
+                if (((flags & WILDCARD) != 0) && (labelStart > 0)) {
+                    longestRule = labels + 1;
+                }
+                node = node.getChild('.');
+            }
+            labelEnd = labelStart - 1;
+        }
+        if (exception > 0) {
+            return exception - 1;
+        }
+        return Math.max(longestRule, 1); // The default rule is "*"
+    }
+
+    private static byte getFlags(CharTrieNode<Byte> node) {
+        Byte flags = node.getValue();
+        return (flags == null) ? (byte) 0 : flags;
+    }
+
+    private static int countLabels(String domain) {
+        if (domain.isEmpty()) {
+            return 0;
+        }
+        int labels = 1;
+        for (int i = 0; i < domain.length(); i++) {
+            if (domain.charAt(i) == '.') {
+                labels++;
+            }
+        }
+        return labels;
+    }
+}
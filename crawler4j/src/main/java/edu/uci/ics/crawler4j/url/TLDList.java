@@ -8,10 +8,10 @@ import java.net.URL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.net.InternetDomainName;
 
-import de.malkusch.whoisServerList.publicSuffixList.PublicSuffixList;
-import de.malkusch.whoisServerList.publicSuffixList.PublicSuffixListFactory;
 import edu.uci.ics.crawler4j.crawler.CrawlConfig;
 
 /**
@@ -21,12 +21,20 @@ import edu.uci.ics.crawler4j.crawler.CrawlConfig;
  */
 public class TLDList {
 
+    /**
+     * Maximum number of domains whose registered domain and subdomain are kept
+     */
+    private static final int MAX_CACHED_DOMAINS = 100000;
+
     @SuppressWarnings("unused")
     private final Logger logger = LoggerFactory.getLogger(TLDList.class);
 
     private boolean onlineUpdate;
 
-    private PublicSuffixList publicSuffixList;
+    private PublicSuffixTrie publicSuffixList;
+
+    private final Cache<String, DomainParts> domainParts =
+        CacheBuilder.newBuilder().maximumSize(MAX_CACHED_DOMAINS).build();
 
     public TLDList(CrawlConfig config) throws IOException {
         this.onlineUpdate = config.isOnlineTldListUpdate();
@@ -40,7 +48,7 @@ public class TLDList {
                 stream = new FileInputStream(filename);
             }
             try {
-                this.publicSuffixList = new PublicSuffixListFactory().build(stream);
+                this.publicSuffixList = new PublicSuffixTrie(stream);
             } finally {
                 stream.close();
             }
@@ -62,4 +70,61 @@ public class TLDList {
             return InternetDomainName.from(domain).isTopPrivateDomain();
         }
     }
+
+    /**
+     * Splits a domain into its registered domain and its subdomain. The parts of the domains seen
+     * most recently are cached, as the same hosts appear in most of the URLs of a crawl.
+     *
+     * @param domain the domain part of a URL
+     */
+    DomainParts getDomainParts(String domain) {
+        DomainParts parts = domainParts.getIfPresent(domain);
+        if (parts == null) {
+            parts = splitDomain(domain);
+            domainParts.put(domain, parts);
+        }
+        return parts;
+    }
+
+    private DomainParts splitDomain(String domain) {
+        if (domain.isEmpty() || !InternetDomainName.isValid(domain)) {
+            return new DomainParts(domain, "");
+        }
+        String candidate = null;
+        String rd = null;
+        String sd = null;
+        String[] parts = domain.split("\\.");
+        for (int i = parts.length - 1; i >= 0; i--) {
+            if (rd == null) {
+                if (candidate == null) {
+                    candidate = parts[i];
+                } else {
+                    candidate = parts[i] + "." + candidate;
+                }
+                if (isRegisteredDomain(candidate)) {
+                    rd = candidate;
+                }
+            } else {
+                if (sd == null) {
+                    sd = parts[i];
+                } else {
+                    sd = parts[i] + "." + sd;
+                }
+            }
+        }
+        return new DomainParts((rd != null) ? rd : domain, (sd != null) ? sd : "");
+    }
+
+    /**
+     * The registered domain and the subdomain of a domain.
+     */
+    static final class DomainParts {
+        final String registeredDomain;
+        final String subDomain;
+
+        DomainParts(String registeredDomain, String subDomain) {
+            this.registeredDomain = registeredDomain;
+            this.subDomain = subDomain;
+        }
+    }
 }
@@ -54,7 +54,121 @@ public class URLCanonicalizer {
 
     public static String getCanonicalURL(String href, String context, Charset charset)
             throws UnsupportedEncodingException {
+        if (href != null) {
+            String canonicalURL = getSimpleCanonicalURL(href, context);
+            if (canonicalURL != null) {
+                return canonicalURL;
+            }
+        }
+        return resolveAndCanonicalize(href, context, charset);
+    }
+
+    /**
+     * Canonicalizes the URLs which are already canonical but for a fragment or a missing path,
+     * without parsing them: absolute http and https URLs with a lower case host and no port, user
+     * info or query, and absolute paths relative to such URLs. Their path must not contain empty or
+     * dot segments, or characters which may be encoded differently.
+     *
+     * @return the canonical URL, or null if the URL needs the full canonicalization
+     */
+    static String getSimpleCanonicalURL(String href, String context) {
+        if (href.startsWith("/")) {
+            if (href.startsWith("//") || (context == null)) {
+                return null;
+            }
+            int authorityEnd = getSimpleAuthorityEnd(context);
+            int pathEnd = getSimplePathEnd(href, 0);
+            if ((authorityEnd == -1) || (pathEnd == -1)) {
+                return null;
+            }
+            return new StringBuilder(authorityEnd + pathEnd).append(context, 0, authorityEnd)
+                                                            .append(href, 0, pathEnd).toString();
+        }
 
+        int authorityEnd = getSimpleAuthorityEnd(href);
+        if (authorityEnd == -1) {
+            return null;
+        }
+        int pathEnd = getSimplePathEnd(href, authorityEnd);
+        if (pathEnd == -1) {
+            return null;
+        }
+        if (pathEnd == authorityEnd) {
+            return href.substring(0, authorityEnd) + "/";
+        }
+        return (pathEnd == href.length()) ? href : href.substring(0, pathEnd);
+    }
+
+    /**
+     * @return the end of the scheme and host of the URL if they are canonical, or -1
+     */
+    private static int getSimpleAuthorityEnd(String url) {
+        int start;
+        if (url.startsWith("http://")) {
+            start = "http://".length();
+        } else if (url.startsWith("https://")) {
+            start = "https://".length();
+        } else {
+            return -1;
+        }
+        int i = start;
+        for (; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if ((c == '/') || (c == '#')) {
+                break;
+            }
+            if (!(((c >= 'a') && (c <= 'z')) || ((c >= '0') && (c <= '9')) || (c == '.') || (c == '-'))) {
+                return -1;
+            }
+        }
+        return (i > start) ? i : -1;
+    }
+
+    /**
+     * @return the end of the path starting at the given index, which is the start of the fragment
+     * or the end of the URL, or -1 if the path is not canonical
+     */
+    private static int getSimplePathEnd(String url, int start) {
+        if ((start == url.length()) || (url.charAt(start) == '#')) {
+            return start;
+        }
+        if (url.charAt(start) != '/') {
+            return -1;
+        }
+        int segmentStart = start + 1;
+        int i = segmentStart;
+        for (; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '#') {
+                break;
+            }
+            if (c == '/') {
+                if ((i == segmentStart) || isDotSegment(url, segmentStart, i)) {
+                    return -1;
+                }
+                segmentStart = i + 1;
+            } else if (!isSimplePathChar(c)) {
+                return -1;
+            }
+        }
+        return isDotSegment(url, segmentStart, i) ? -1 : i;
+    }
+
+    private static boolean isDotSegment(String url, int start, int end) {
+        return ((end - start == 1) && (url.charAt(start) == '.')) ||
+               ((end - start == 2) && (url.charAt(start) == '.') && (url.charAt(start + 1) == '.'));
+    }
+
+    private static boolean isSimplePathChar(char c) {
+        return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9')) ||
+               ("-._~!$&'()*+,=".indexOf(c) != -1);
+    }
+
+    /**
+     * Resolves the URL against its context and canonicalizes all of its parts.
+     */
+    static String resolveAndCanonicalize(String href, String context, Charset charset)
+            throws UnsupportedEncodingException {
         try {
             URL canonicalURL =
                 new URL(UrlResolver.resolveUrl((context == null) ? "" : context, href));
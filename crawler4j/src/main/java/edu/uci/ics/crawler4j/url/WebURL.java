@@ -20,7 +20,6 @@ package edu.uci.ics.crawler4j.url;
 import java.io.Serializable;
 import java.util.Map;
 
-import com.google.common.net.InternetDomainName;
 import com.sleepycat.persist.model.Entity;
 import com.sleepycat.persist.model.PrimaryKey;
 
@@ -40,11 +39,14 @@ public class WebURL implements Serializable {
     private int parentDocid;
     private String parentUrl;
     private short depth;
+    private String host;
     private String registeredDomain;
     private String subDomain;
     private String path;
     private String anchor;
     private byte priority;
+    private short attempts;
+    private long notBefore;
     private String tag;
     private Map<String, String> attributes;
     private TLDList tldList;
@@ -80,41 +82,11 @@ public class WebURL implements Serializable {
         this.url = url;
 
         int domainStartIdx = url.indexOf("//") + 2;
-        int domainEndIdx = url.indexOf('/', domainStartIdx);
-        domainEndIdx = (domainEndIdx > domainStartIdx) ? domainEndIdx : url.length();
-        String domain = url.substring(domainStartIdx, domainEndIdx);
-        registeredDomain = domain;
-        subDomain = "";
-        if (tldList != null && !(domain.isEmpty()) && InternetDomainName.isValid(domain)) {
-            String candidate = null;
-            String rd = null;
-            String sd = null;
-            String[] parts = domain.split("\\.");
-            for (int i = parts.length - 1; i >= 0; i--) {
-                if (rd == null) {
-                    if (candidate == null) {
-                        candidate = parts[i];
-                    } else {
-                        candidate = parts[i] + "." + candidate;
-                    }
-                    if (tldList.isRegisteredDomain(candidate)) {
-                        rd = candidate;
-                    }
-                } else {
-                    if (sd == null) {
-                        sd = parts[i];
-                    } else {
-                        sd = parts[i] + "." + sd;
-                    }
-                }
-            }
-            if (rd != null) {
-                registeredDomain = rd;
-            }
-            if (sd != null) {
-                subDomain = sd;
-            }
-        }
+        int domainEndIdx = getDomainEndIndex(url, domainStartIdx);
+        host = extractHost(url.substring(domainStartIdx, domainEndIdx));
+        // The registered domain and the subdomain are only computed when they are asked for
+        registeredDomain = null;
+        subDomain = null;
         path = url.substring(domainEndIdx);
         int pathEndIdx = path.indexOf('?');
         if (pathEndIdx >= 0) {
@@ -122,6 +94,34 @@ public class WebURL implements Serializable {
         }
     }
 
+    private static int getDomainEndIndex(String url, int domainStartIdx) {
+        int domainEndIdx = url.indexOf('/', domainStartIdx);
+        return (domainEndIdx > domainStartIdx) ? domainEndIdx : url.length();
+    }
+
+    private void splitDomain() {
+        int domainStartIdx = url.indexOf("//") + 2;
+        String domain = url.substring(domainStartIdx, getDomainEndIndex(url, domainStartIdx));
+        if (tldList == null) {
+            registeredDomain = domain;
+            subDomain = "";
+        } else {
+            TLDList.DomainParts parts = tldList.getDomainParts(domain);
+            registeredDomain = parts.registeredDomain;
+            subDomain = parts.subDomain;
+        }
+    }
+
+    private static String extractHost(String authority) {
+        int hostStartIdx = authority.lastIndexOf('@') + 1;
+        int hostEndIdx = authority.length();
+        int portIdx = authority.lastIndexOf(':');
+        if ((portIdx > hostStartIdx) && (authority.indexOf(']', portIdx) < 0)) {
+            hostEndIdx = portIdx;
+        }
+        return authority.substring(hostStartIdx, hostEndIdx).toLowerCase();
+    }
+
     /**
      * @return
      *      unique document id of the parent page. The parent page is the
@@ -161,6 +161,15 @@ public class WebURL implements Serializable {
         this.depth = depth;
     }
 
+    /**
+     * @return
+     *      host name of this Url, in lower case and without user info or port. For
+     *      'http://www.example.com:8080/sample.htm' the host is 'www.example.com'.
+     */
+    public String getHost() {
+        return host;
+    }
+
     /**
      * If {@link WebURL} was provided with a {@link TLDList} then domain will be the
      * privately registered domain which is an immediate child of an effective top
@@ -173,6 +182,9 @@ public class WebURL implements Serializable {
      *         'http://www.my.company.co.uk' the domain is 'company.co.uk'.
      */
     public String getDomain() {
+        if ((registeredDomain == null) && (url != null)) {
+            splitDomain();
+        }
         return registeredDomain;
     }
 
@@ -184,6 +196,9 @@ public class WebURL implements Serializable {
      * "http://www.my.company.co.uk" the subdomain would be "www.my".
      */
     public String getSubDomain() {
+        if ((subDomain == null) && (url != null)) {
+            splitDomain();
+        }
         return subDomain;
     }
 
@@ -223,6 +238,29 @@ public class WebURL implements Serializable {
         this.priority = priority;
     }
 
+    /**
+     * @return number of times fetching this URL failed and it was scheduled to be retried
+     */
+    public short getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(short attempts) {
+        this.attempts = attempts;
+    }
+
+    /**
+     * @return time in milliseconds before which this URL should not be fetched again, after a
+     * failed attempt
+     */
+    public long getNotBefore() {
+        return notBefore;
+    }
+
+    public void setNotBefore(long notBefore) {
+        this.notBefore = notBefore;
+    }
+
     /**
      * @return tag in which this URL is found
      * */
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.util;
+
+import java.util.Arrays;
+
+/**
+ * A node of a trie of characters. The children of a node are kept in arrays sorted by their
+ * character, so a trie of many short keys takes little memory and is walked without allocating
+ * anything.
+ *
+ * @param <V> the type of the value stored in the nodes
+ */
+public final class CharTrieNode<V> {
+    private char[] keys = new char[0];
+    @SuppressWarnings("unchecked")
+    private CharTrieNode<V>[] children = new CharTrieNode[0];
+    private V value;
+
+    /**
+     * @return the child of the given character, or null if there is none
+     */
+    public CharTrieNode<V> getChild(char key) {
+        int index = Arrays.binarySearch(keys, key);
+        return (index >= 0) ? children[index] : null;
+    }
+
+    /**
+     * @return the child of the given character, which is added if there is none
+     */
+    public CharTrieNode<V> getOrAddChild(char key) {
+        int index = Arrays.binarySearch(keys, key);
+        if (index >= 0) {
+            return children[index];
+        }
+        int insertAt = -(index + 1);
+        char[] newKeys = new char[keys.length + 1];
+        CharTrieNode<V>[] newChildren = Arrays.copyOf(children, children.length + 1);
+        System.arraycopy(keys, 0, newKeys, 0, insertAt);
+        System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+        System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+        CharTrieNode<V> child = new CharTrieNode<>();
+        newKeys[insertAt] = key;
+        newChildren[insertAt] = child;
+        keys = newKeys;
+        children = newChildren;
+        return child;
+    }
+
+    /**
+     * @return the value of this node, or null if it has none
+     */
+    public V getValue() {
+        return value;
+    }
+
+    public void setValue(V value) {
+        this.value = value;
+    }
+}
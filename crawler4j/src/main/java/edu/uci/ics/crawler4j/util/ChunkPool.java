@@ -0,0 +1,60 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A pool of the chunks used by {@link ContentBuffer}, shared by all crawler threads. Chunks are
+ * allocated when the pool is empty and dropped when it is full, so the pool never holds more than
+ * its capacity, but once it is warmed up loading a page does not allocate any chunk.
+ */
+public class ChunkPool {
+
+    private final BlockingQueue<byte[]> chunks;
+
+    /**
+     * @param maxBytes the maximum number of bytes kept in the pool
+     */
+    public ChunkPool(int maxBytes) {
+        chunks = new ArrayBlockingQueue<>(Math.max(1, maxBytes / ContentBuffer.CHUNK_SIZE));
+    }
+
+    /**
+     * @return a chunk from the pool, or a new one if the pool is empty
+     */
+    public byte[] acquire() {
+        byte[] chunk = chunks.poll();
+        return (chunk == null) ? new byte[ContentBuffer.CHUNK_SIZE] : chunk;
+    }
+
+    /**
+     * Returns a chunk to the pool, which drops it if it is full.
+     */
+    public void release(byte[] chunk) {
+        chunks.offer(chunk);
+    }
+
+    /**
+     * @return number of chunks available in the pool
+     */
+    public int size() {
+        return chunks.size();
+    }
+}
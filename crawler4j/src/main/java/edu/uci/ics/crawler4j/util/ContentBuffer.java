@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A buffer of bytes stored in fixed size chunks. Unlike a growing byte array, the content is
+ * never copied while it is read, and it can be read back as a stream without being copied into
+ * a single array.
+ */
+public class ContentBuffer {
+
+    static final int CHUNK_SIZE = 8192;
+
+    private final List<byte[]> chunks = new ArrayList<>();
+    private final ChunkPool pool;
+    private int length;
+
+    public ContentBuffer() {
+        this(null);
+    }
+
+    /**
+     * @param pool the pool the chunks are taken from and released to, or null to allocate them
+     */
+    public ContentBuffer(ChunkPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Appends the content of the input stream to this buffer, up to the given maximum length of
+     * the buffer.
+     *
+     * @param in the stream to read until its end
+     * @param maxBytes the maximum length of the buffer, or 0 for no maximum
+     * @return {@code true} if the stream had more content than allowed by {@code maxBytes}
+     * @throws IOException when reading fails
+     */
+    public boolean readFrom(InputStream in, int maxBytes) throws IOException {
+        int limit = (maxBytes > 0) ? maxBytes : Integer.MAX_VALUE;
+        while (true) {
+            if (length >= limit) {
+                return in.read() != -1;
+            }
+            int offset = length % CHUNK_SIZE;
+            if (offset == 0 && (length / CHUNK_SIZE) == chunks.size()) {
+                chunks.add((pool == null) ? new byte[CHUNK_SIZE] : pool.acquire());
+            }
+            byte[] chunk = chunks.get(chunks.size() - 1);
+            int count = in.read(chunk, offset, Math.min(CHUNK_SIZE - offset, limit - length));
+            if (count == -1) {
+                return false;
+            }
+            length += count;
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return {@code true} if the chunks of this buffer are taken from a pool
+     */
+    public boolean isPooled() {
+        return pool != null;
+    }
+
+    /**
+     * Returns the chunks to the pool and empties this buffer. Streams created before must not be
+     * used anymore.
+     */
+    public void release() {
+        if (pool != null) {
+            for (byte[] chunk : chunks) {
+                pool.release(chunk);
+            }
+        }
+        chunks.clear();
+        length = 0;
+    }
+
+    /**
+     * @return a stream over the content of this buffer, which does not copy it
+     */
+    public InputStream newInputStream() {
+        return new ChunkInputStream();
+    }
+
+    /**
+     * @return a copy of the content of this buffer as a single array
+     */
+    public byte[] toByteArray() {
+        byte[] data = new byte[length];
+        int copied = 0;
+        for (byte[] chunk : chunks) {
+            int count = Math.min(chunk.length, length - copied);
+            System.arraycopy(chunk, 0, data, copied, count);
+            copied += count;
+        }
+        return data;
+    }
+
+    /**
+     * Decodes the content of this buffer without first copying it into a single array.
+     */
+    public String toString(Charset charset) throws IOException {
+        if (chunks.size() <= 1) {
+            return chunks.isEmpty() ? "" : new String(chunks.get(0), 0, length, charset);
+        }
+        StringBuilder sb = new StringBuilder(length);
+        char[] buffer = new char[CHUNK_SIZE];
+        try (Reader reader = new InputStreamReader(newInputStream(), charset)) {
+            int count;
+            while ((count = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, count);
+            }
+        }
+        return sb.toString();
+    }
+
+    private final class ChunkInputStream extends InputStream {
+        private int position;
+
+        @Override
+        public int read() {
+            if (position >= length) {
+                return -1;
+            }
+            byte value = chunks.get(position / CHUNK_SIZE)[position % CHUNK_SIZE];
+            position++;
+            return value & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= length) {
+                return -1;
+            }
+            int offset = position % CHUNK_SIZE;
+            int count = Math.min(len, Math.min(CHUNK_SIZE - offset, length - position));
+            System.arraycopy(chunks.get(position / CHUNK_SIZE), offset, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, length - position));
+            position += (int) skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return length - position;
+        }
+    }
+}
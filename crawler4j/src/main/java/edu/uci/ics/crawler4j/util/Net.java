@@ -1,10 +1,8 @@
 package edu.uci.ics.crawler4j.util;
 
 import java.util.Collections;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import com.linkedin.urls.Url;
 import com.linkedin.urls.detection.UrlDetector;
@@ -22,36 +20,98 @@ public class Net {
 
     private TLDList tldList;
 
-    private Function<Url, WebURL> urlMapper = url -> {
-        WebURL webUrl = new WebURL();
-        webUrl.setTldList(tldList);
-        webUrl.setURL(url.getFullUrl());
-        return webUrl;
-    };
+    private final UrlDetectorOptions options;
 
-    private CrawlConfig config;
+    private final boolean allowSingleLevelDomain;
 
     public Net(CrawlConfig config, TLDList tldList) {
-        this.config = config;
         this.tldList = tldList;
+        this.allowSingleLevelDomain = config.isAllowSingleLevelDomain();
+        this.options = allowSingleLevelDomain ?
+                UrlDetectorOptions.ALLOW_SINGLE_LEVEL_DOMAIN : UrlDetectorOptions.Default;
     }
 
-    public Set<WebURL> extractUrls(String input) {
+    /**
+     * Extracts the URLs in a text. Only the words of the text which can be part of a URL, those
+     * containing "://" or a dot between two letters or digits, are searched by the URL detector.
+     * When single level domains are allowed, so are the words with a host followed by a port or
+     * a path, like "localhost:8080" or "intranet/docs".
+     */
+    public Set<WebURL> extractUrls(CharSequence input) {
         if (input == null) {
             return Collections.emptySet();
-        } else {
-            UrlDetector detector = new UrlDetector(input, getOptions());
-            List<Url> urls = detector.detect();
-            return urls.stream().map(urlMapper).collect(Collectors.toSet());
         }
+        String candidates = findCandidates(input);
+        if (candidates.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<WebURL> webURLs = new HashSet<>();
+        for (Url url : new UrlDetector(candidates, options).detect()) {
+            WebURL webURL = new WebURL();
+            webURL.setTldList(tldList);
+            webURL.setURL(url.getFullUrl());
+            webURLs.add(webURL);
+        }
+        return webURLs;
+    }
+
+    /**
+     * @return the words of the input which can be part of a URL, separated by spaces
+     */
+    private String findCandidates(CharSequence input) {
+        StringBuilder candidates = new StringBuilder();
+        int length = input.length();
+        int wordStart = -1;
+        boolean isCandidate = false;
+        for (int i = 0; i <= length; i++) {
+            char c = (i < length) ? input.charAt(i) : ' ';
+            if (Character.isWhitespace(c)) {
+                if (isCandidate) {
+                    if (candidates.length() > 0) {
+                        candidates.append(' ');
+                    }
+                    candidates.append(input, wordStart, i);
+                }
+                wordStart = -1;
+                isCandidate = false;
+            } else {
+                if (wordStart == -1) {
+                    wordStart = i;
+                }
+                if (!isCandidate) {
+                    isCandidate = isUrlMarker(input, i, wordStart);
+                }
+            }
+        }
+        return candidates.toString();
     }
 
-    private UrlDetectorOptions getOptions() {
-        if (config.isAllowSingleLevelDomain()) {
-            return UrlDetectorOptions.ALLOW_SINGLE_LEVEL_DOMAIN;
-        } else {
-            return UrlDetectorOptions.Default;
+    /**
+     * @return {@code true} if the character at the given index starts "://" or is a dot between
+     * two letters or digits of the same word, or, when single level domains are allowed, if it
+     * follows a letter or digit and starts a port or a path
+     */
+    private boolean isUrlMarker(CharSequence input, int index, int wordStart) {
+        char c = input.charAt(index);
+        if (c == ':') {
+            if ((index + 2 < input.length()) && (input.charAt(index + 1) == '/') &&
+                (input.charAt(index + 2) == '/')) {
+                return true;
+            }
+            return allowSingleLevelDomain && (index > wordStart) && (index + 1 < input.length()) &&
+                   Character.isLetterOrDigit(input.charAt(index - 1)) &&
+                   Character.isDigit(input.charAt(index + 1));
+        }
+        if (c == '.') {
+            return (index > wordStart) && (index + 1 < input.length()) &&
+                   Character.isLetterOrDigit(input.charAt(index - 1)) &&
+                   Character.isLetterOrDigit(input.charAt(index + 1));
+        }
+        if (c == '/') {
+            return allowSingleLevelDomain && (index > wordStart) &&
+                   Character.isLetterOrDigit(input.charAt(index - 1));
         }
+        return false;
     }
 
-}
\ No newline at end of file
+}
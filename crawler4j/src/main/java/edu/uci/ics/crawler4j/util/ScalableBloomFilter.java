@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.crawler4j.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Funnels;
+
+/**
+ * A Bloom filter of strings which grows with the number of inserted elements. It is made of a
+ * list of Bloom filters, each one twice as large as the previous one and with half of its false
+ * positive probability, so the overall false positive probability stays below the configured
+ * one no matter how many elements are inserted.
+ */
+public class ScalableBloomFilter {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final Funnel<CharSequence> FUNNEL = Funnels.unencodedCharsFunnel();
+
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param initialCapacity number of elements the first filter is sized for
+     * @param falsePositiveProbability the maximum false positive probability of the whole filter
+     */
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveProbability) {
+        // The probabilities of the stages are p/2, p/4, ... which add up to at most p
+        stages.add(new Stage(Math.max(1, initialCapacity), falsePositiveProbability / 2));
+    }
+
+    private ScalableBloomFilter() {
+    }
+
+    /**
+     * @return {@code false} if the element has definitely never been put in this filter,
+     * {@code true} if it probably has
+     */
+    public boolean mightContain(CharSequence element) {
+        for (Stage stage : stages) {
+            if (stage.filter.mightContain(element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void put(CharSequence element) {
+        Stage current = stages.get(stages.size() - 1);
+        if (current.count >= current.capacity) {
+            current = new Stage(current.capacity * 2, current.falsePositiveProbability / 2);
+            stages.add(current);
+        }
+        current.filter.put(element);
+        current.count++;
+    }
+
+    /**
+     * @return number of elements put in this filter
+     */
+    public synchronized long getCount() {
+        long count = 0;
+        for (Stage stage : stages) {
+            count += stage.count;
+        }
+        return count;
+    }
+
+    public synchronized void writeTo(OutputStream out) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(FORMAT_VERSION);
+        dataOut.writeInt(stages.size());
+        for (Stage stage : stages) {
+            dataOut.writeLong(stage.capacity);
+            dataOut.writeLong(stage.count);
+            dataOut.writeDouble(stage.falsePositiveProbability);
+            stage.filter.writeTo(dataOut);
+        }
+        dataOut.flush();
+    }
+
+    public static ScalableBloomFilter readFrom(InputStream in) throws IOException {
+        DataInputStream dataIn = new DataInputStream(in);
+        int version = dataIn.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported bloom filter format: " + version);
+        }
+        ScalableBloomFilter bloomFilter = new ScalableBloomFilter();
+        int numStages = dataIn.readInt();
+        for (int i = 0; i < numStages; i++) {
+            long capacity = dataIn.readLong();
+            long count = dataIn.readLong();
+            double falsePositiveProbability = dataIn.readDouble();
+            BloomFilter<CharSequence> filter = BloomFilter.readFrom(dataIn, FUNNEL);
+            bloomFilter.stages.add(new Stage(capacity, falsePositiveProbability, filter, count));
+        }
+        if (bloomFilter.stages.isEmpty()) {
+            throw new IOException("Bloom filter without stages");
+        }
+        return bloomFilter;
+    }
+
+    private static final class Stage {
+        private final long capacity;
+        private final double falsePositiveProbability;
+        private final BloomFilter<CharSequence> filter;
+        private long count;
+
+        Stage(long capacity, double falsePositiveProbability) {
+            this(capacity, falsePositiveProbability,
+                 BloomFilter.create(FUNNEL, capacity, falsePositiveProbability), 0);
+        }
+
+        Stage(long capacity, double falsePositiveProbability, BloomFilter<CharSequence> filter,
+              long count) {
+            this.capacity = capacity;
+            this.falsePositiveProbability = falsePositiveProbability;
+            this.filter = filter;
+            this.count = count;
+        }
+    }
+}
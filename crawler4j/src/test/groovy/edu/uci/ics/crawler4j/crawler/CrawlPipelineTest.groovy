@@ -0,0 +1,216 @@
+package edu.uci.ics.crawler4j.crawler
+
+import java.util.concurrent.ConcurrentLinkedQueue
+
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration
+import com.github.tomakehurst.wiremock.junit.WireMockRule
+import edu.uci.ics.crawler4j.crawler.CrawlController.WebCrawlerFactory
+import edu.uci.ics.crawler4j.crawler.exceptions.ParseException
+import edu.uci.ics.crawler4j.fetcher.PageFetcher
+import edu.uci.ics.crawler4j.parser.HtmlParser
+import edu.uci.ics.crawler4j.parser.Parser
+import edu.uci.ics.crawler4j.parser.TikaHtmlParser
+import edu.uci.ics.crawler4j.robotstxt.RobotstxtConfig
+import edu.uci.ics.crawler4j.robotstxt.RobotstxtServer
+import edu.uci.ics.crawler4j.url.WebURL
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*
+
+class CrawlPipelineTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(new WireMockConfiguration().dynamicPort())
+
+    def "assigns crawlers to stages by their id"() {
+        given: "a pipeline with 2 fetchers, 3 parsers, 1 link scheduler and 2 visitors"
+        CrawlConfig config = new CrawlConfig(numberOfParserThreads: 3, numberOfVisitorThreads: 2)
+        CrawlPipeline pipeline = new CrawlPipeline(config, 2)
+
+        expect:
+        pipeline.getNumberOfCrawlers() == 8
+        (1..8).collect { pipeline.getStage(it) } == [
+                CrawlPipeline.Stage.FETCH, CrawlPipeline.Stage.FETCH,
+                CrawlPipeline.Stage.PARSE, CrawlPipeline.Stage.PARSE, CrawlPipeline.Stage.PARSE,
+                CrawlPipeline.Stage.SCHEDULE_LINKS,
+                CrawlPipeline.Stage.VISIT, CrawlPipeline.Stage.VISIT]
+    }
+
+    def "visits all pages when crawling in stages"() {
+        given: "an index page linking to three pages"
+        stubFor(get(urlEqualTo("/some/index.html"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/html")
+                .withBody(
+                $/<html>
+                    <body>
+                        <a href="/some/page1.html">page 1</a>
+                        <a href="/some/page2.html">page 2</a>
+                        <a href="/some/page3.html">page 3</a>
+                    </body>
+                   </html>/$
+        )))
+        stubFor(get(urlPathMatching("/some/page[1-3].html"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/html")
+                .withBody(
+                $/<html>
+                    <body>
+                        <a href="/some/index.html">back</a>
+                    </body>
+                  </html>/$)))
+        stubFor(get(urlPathMatching("/robots.txt"))
+                .willReturn(aResponse()
+                .withStatus(404)))
+
+        when:
+        CrawlConfig config = new CrawlConfig(
+                crawlStorageFolder: temp.getRoot().getAbsolutePath()
+                , politenessDelay: 0
+                , threadShutdownDelaySeconds: 1
+                , threadMonitoringDelaySeconds: 1
+                , cleanupDelaySeconds: 1
+                , pipelinedCrawling: true
+                , numberOfParserThreads: 2
+                , pipelineQueueSize: 1
+        )
+
+        PageFetcher pageFetcher = new PageFetcher(config)
+        RobotstxtServer robotstxtServer = new RobotstxtServer(new RobotstxtConfig(), pageFetcher)
+        CrawlController controller = new CrawlController(config, pageFetcher, robotstxtServer)
+        controller.addSeed "http://localhost:" + wireMockRule.port() + "/some/index.html"
+
+        Queue<String> visited = new ConcurrentLinkedQueue<>()
+        controller.start({
+            new WebCrawler() {
+                @Override
+                void visit(Page page) {
+                    visited.add(page.getWebURL().getPath())
+                }
+            }
+        } as WebCrawlerFactory, 2)
+
+        then: "every page is visited once"
+        visited.sort() == ["/some/index.html", "/some/page1.html", "/some/page2.html", "/some/page3.html"]
+        controller.getPipeline().isIdle()
+    }
+
+    def "completes the pages of a stage which throws"() {
+        given: "an index page linking to a page which fails to parse"
+        stubFor(get(urlEqualTo("/some/index.html"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/html")
+                .withBody(
+                $/<html>
+                    <body>
+                        <a href="/some/broken.html">broken</a>
+                        <a href="/some/page1.html">page 1</a>
+                    </body>
+                   </html>/$
+        )))
+        stubFor(get(urlPathMatching("/some/(broken|page1).html"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/html")
+                .withBody("<html><body>hello</body></html>")))
+        stubFor(get(urlPathMatching("/robots.txt"))
+                .willReturn(aResponse()
+                .withStatus(404)))
+
+        when: "the parse error handler throws"
+        CrawlConfig config = new CrawlConfig(
+                crawlStorageFolder: temp.getRoot().getAbsolutePath()
+                , politenessDelay: 0
+                , threadShutdownDelaySeconds: 1
+                , threadMonitoringDelaySeconds: 1
+                , cleanupDelaySeconds: 1
+                , pipelinedCrawling: true
+        )
+
+        TikaHtmlParser tikaHtmlParser = new TikaHtmlParser(config, null)
+        HtmlParser htmlParser = { Page page, String contextURL ->
+            if (contextURL.endsWith("/broken.html")) {
+                throw new ParseException()
+            }
+            return tikaHtmlParser.parse(page, contextURL)
+        } as HtmlParser
+        PageFetcher pageFetcher = new PageFetcher(config)
+        RobotstxtServer robotstxtServer = new RobotstxtServer(new RobotstxtConfig(), pageFetcher)
+        CrawlController controller = new CrawlController(config, pageFetcher, new Parser(config, htmlParser),
+                                                         robotstxtServer, null)
+        controller.addSeed "http://localhost:" + wireMockRule.port() + "/some/index.html"
+
+        Queue<String> visited = new ConcurrentLinkedQueue<>()
+        controller.start({
+            new WebCrawler() {
+                @Override
+                protected void onParseError(WebURL webUrl, ParseException e) throws ParseException {
+                    throw e
+                }
+
+                @Override
+                void visit(Page page) {
+                    visited.add(page.getWebURL().getPath())
+                }
+            }
+        } as WebCrawlerFactory, 1)
+
+        then: "the other pages are visited and no page is left in process"
+        visited.sort() == ["/some/index.html", "/some/page1.html"]
+        controller.getPipeline().isIdle()
+    }
+
+    def "does not visit a page whose links could not be scheduled"() {
+        given: "an index page linking to another page"
+        stubFor(get(urlEqualTo("/some/index.html"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/html")
+                .withBody("<html><body><a href=\"/some/page1.html\">page 1</a></body></html>")))
+        stubFor(get(urlPathMatching("/robots.txt"))
+                .willReturn(aResponse()
+                .withStatus(404)))
+
+        when: "shouldVisit throws"
+        CrawlConfig config = new CrawlConfig(
+                crawlStorageFolder: temp.getRoot().getAbsolutePath()
+                , politenessDelay: 0
+                , threadShutdownDelaySeconds: 1
+                , threadMonitoringDelaySeconds: 1
+                , cleanupDelaySeconds: 1
+                , pipelinedCrawling: true
+        )
+
+        PageFetcher pageFetcher = new PageFetcher(config)
+        RobotstxtServer robotstxtServer = new RobotstxtServer(new RobotstxtConfig(), pageFetcher)
+        CrawlController controller = new CrawlController(config, pageFetcher, robotstxtServer)
+        controller.addSeed "http://localhost:" + wireMockRule.port() + "/some/index.html"
+
+        Queue<String> visited = new ConcurrentLinkedQueue<>()
+        controller.start({
+            new WebCrawler() {
+                @Override
+                boolean shouldVisit(Page referringPage, WebURL url) {
+                    throw new IllegalStateException("failed")
+                }
+
+                @Override
+                void visit(Page page) {
+                    visited.add(page.getWebURL().getPath())
+                }
+            }
+        } as WebCrawlerFactory, 1)
+
+        then: "the page is not visited, as it was not before pipelining, and is completed"
+        visited.isEmpty()
+        controller.getPipeline().isIdle()
+    }
+}
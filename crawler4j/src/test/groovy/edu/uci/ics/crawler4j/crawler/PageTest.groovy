@@ -1,6 +1,7 @@
 package edu.uci.ics.crawler4j.crawler
 
 import edu.uci.ics.crawler4j.url.WebURL
+import edu.uci.ics.crawler4j.util.ChunkPool
 import org.apache.commons.io.IOUtils
 import org.apache.http.HttpEntity
 import org.apache.http.entity.BasicHttpEntity
@@ -25,4 +26,28 @@ class PageTest extends Specification {
         then: "charset should fallback to UTF-8"
         "UTF-8".equals(page.getContentCharset())
     }
+
+    def "content which was released cannot be read"() {
+        given: "a page loaded into pooled chunks"
+        HttpEntity entity = new BasicHttpEntity()
+        entity.setContent(IOUtils.toInputStream("<html>The content</html>", "UTF-8"))
+        entity.setContentType(new BasicHeader("Content-type", "text/html; charset=UTF-8"))
+        WebURL u = new WebURL()
+        u.setURL("http://www.example.com/")
+        Page page = new Page(u)
+        page.load(entity, 1024, new ChunkPool(1024 * 1024))
+
+        when: "reading it after it was released"
+        page.releaseContent()
+        page.getContentStream()
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        page.getContentData()
+
+        then:
+        thrown(IllegalStateException)
+    }
 }
@@ -0,0 +1,140 @@
+package edu.uci.ics.crawler4j.crawler
+
+import java.util.concurrent.ConcurrentLinkedQueue
+
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration
+import com.github.tomakehurst.wiremock.junit.WireMockRule
+import com.github.tomakehurst.wiremock.stubbing.Scenario
+import com.github.tomakehurst.wiremock.verification.LoggedRequest
+import edu.uci.ics.crawler4j.crawler.CrawlController.WebCrawlerFactory
+import edu.uci.ics.crawler4j.fetcher.PageFetcher
+import edu.uci.ics.crawler4j.robotstxt.RobotstxtConfig
+import edu.uci.ics.crawler4j.robotstxt.RobotstxtServer
+import edu.uci.ics.crawler4j.url.WebURL
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*
+
+class RetryTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(new WireMockConfiguration().dynamicPort())
+
+    def setup() {
+        stubFor(get(urlPathMatching("/robots.txt"))
+                .willReturn(aResponse()
+                .withStatus(404)))
+    }
+
+    def "fetches a page again after the retry delay when the server is unavailable"() {
+        given: "a page which is unavailable the first time"
+        stubFor(get(urlEqualTo("/some/index.html")).inScenario("unavailable")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(aResponse()
+                .withStatus(503))
+                .willSetStateTo("available"))
+        stubFor(get(urlEqualTo("/some/index.html")).inScenario("unavailable")
+                .whenScenarioStateIs("available")
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/html")
+                .withBody("<html><body>hello</body></html>")))
+
+        when:
+        Queue<String> visited = new ConcurrentLinkedQueue<>()
+        Queue<Integer> unexpectedStatusCodes = new ConcurrentLinkedQueue<>()
+        crawl(new CrawlConfig(maxRetries: 1, retryBaseDelay: 500), {
+            new WebCrawler() {
+                @Override
+                protected void onUnexpectedStatusCode(String urlStr, int statusCode, String contentType,
+                                                      String description) {
+                    unexpectedStatusCodes.add(statusCode)
+                }
+
+                @Override
+                void visit(Page page) {
+                    visited.add(page.getWebURL().getPath())
+                }
+            }
+        } as WebCrawlerFactory)
+
+        then: "the page is visited once it is available"
+        List<LoggedRequest> requests = findAll(getRequestedFor(urlEqualTo("/some/index.html")))
+        requests.size() == 2
+        requests[1].getLoggedDate().time - requests[0].getLoggedDate().time >= 500
+        visited as List == ["/some/index.html"]
+        unexpectedStatusCodes.isEmpty()
+    }
+
+    def "reports an unexpected status code once the retries run out"() {
+        given: "a page which is always unavailable"
+        stubFor(get(urlEqualTo("/some/index.html"))
+                .willReturn(aResponse()
+                .withStatus(503)))
+
+        when:
+        Queue<Integer> unexpectedStatusCodes = new ConcurrentLinkedQueue<>()
+        crawl(new CrawlConfig(maxRetries: 2, retryBaseDelay: 200), {
+            new WebCrawler() {
+                @Override
+                protected void onUnexpectedStatusCode(String urlStr, int statusCode, String contentType,
+                                                      String description) {
+                    unexpectedStatusCodes.add(statusCode)
+                }
+            }
+        } as WebCrawlerFactory)
+
+        then: "the page is fetched once and retried twice, with a growing delay"
+        List<LoggedRequest> requests = findAll(getRequestedFor(urlEqualTo("/some/index.html")))
+        requests.size() == 3
+        requests[1].getLoggedDate().time - requests[0].getLoggedDate().time >= 200
+        requests[2].getLoggedDate().time - requests[1].getLoggedDate().time >= 400
+        unexpectedStatusCodes as List == [503]
+    }
+
+    def "reports a content fetch error once the retries of a timing out page run out"() {
+        given: "a page which is always slower than the socket timeout"
+        stubFor(get(urlEqualTo("/some/index.html"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/html")
+                .withBody("<html><body>hello</body></html>")
+                .withFixedDelay(2000)))
+
+        when:
+        Queue<String> fetchErrors = new ConcurrentLinkedQueue<>()
+        crawl(new CrawlConfig(maxRetries: 1, retryBaseDelay: 500, socketTimeout: 500), {
+            new WebCrawler() {
+                @Override
+                protected void onContentFetchError(WebURL webUrl) {
+                    fetchErrors.add(webUrl.getPath())
+                }
+            }
+        } as WebCrawlerFactory)
+
+        then: "the page is fetched again after the retry delay, then reported once"
+        List<LoggedRequest> requests = findAll(getRequestedFor(urlEqualTo("/some/index.html")))
+        requests.size() == 2
+        requests[1].getLoggedDate().time - requests[0].getLoggedDate().time >= 500
+        fetchErrors as List == ["/some/index.html"]
+    }
+
+    private void crawl(CrawlConfig config, WebCrawlerFactory factory) {
+        config.setCrawlStorageFolder(temp.getRoot().getAbsolutePath())
+        config.setPolitenessDelay(0)
+        config.setThreadShutdownDelaySeconds(1)
+        config.setThreadMonitoringDelaySeconds(1)
+        config.setCleanupDelaySeconds(1)
+
+        PageFetcher pageFetcher = new PageFetcher(config)
+        RobotstxtServer robotstxtServer = new RobotstxtServer(new RobotstxtConfig(), pageFetcher)
+        CrawlController controller = new CrawlController(config, pageFetcher, robotstxtServer)
+        controller.addSeed "http://localhost:" + wireMockRule.port() + "/some/index.html"
+        controller.start(factory, 1)
+    }
+}
@@ -0,0 +1,77 @@
+package edu.uci.ics.crawler4j.fetcher
+
+import edu.uci.ics.crawler4j.crawler.CrawlConfig
+import spock.lang.Specification
+
+class AdaptivePolitenessSchedulerTest extends Specification {
+
+    def config = new CrawlConfig(adaptivePoliteness: true, politenessDelay: 200,
+                                 minPolitenessDelay: 0, maxPolitenessDelay: 1000, maxConnectionsPerHost: 10)
+
+    def "hosts start with the politeness delay"() {
+        given:
+        def scheduler = new AdaptivePolitenessScheduler(config)
+
+        expect:
+        scheduler.getDelay("www.example.com") == 200
+    }
+
+    def "the delay of a host which answers quickly decreases additively"() {
+        given:
+        def scheduler = new AdaptivePolitenessScheduler(config)
+
+        when:
+        5.times { scheduler.onResponse("www.example.com", 200, 10, 0) }
+
+        then:
+        scheduler.getDelay("www.example.com") == 100
+
+        when:
+        20.times { scheduler.onResponse("www.example.com", 200, 10, 0) }
+
+        then: "it never goes below the minimum delay"
+        scheduler.getDelay("www.example.com") == 1
+    }
+
+    def "the delay of a throttling or failing host doubles up to the maximum delay"() {
+        given:
+        def scheduler = new AdaptivePolitenessScheduler(config)
+
+        when:
+        scheduler.onResponse("www.example.com", 503, 0, 0)
+
+        then:
+        scheduler.getDelay("www.example.com") == 400
+
+        when:
+        scheduler.onResponse("www.example.com", 429, 0, 0)
+        scheduler.onFailure("www.example.com", 0)
+
+        then:
+        scheduler.getDelay("www.example.com") == 1000
+        scheduler.getDelay("www.example.org") == 200
+    }
+
+    def "a slow host is not sent more concurrent requests than the connections per host"() {
+        given:
+        def scheduler = new AdaptivePolitenessScheduler(config)
+
+        when:
+        20.times { scheduler.onResponse("www.example.com", 200, 5000, 0) }
+
+        then:
+        scheduler.getDelay("www.example.com") == 500
+    }
+
+    def "the next request waits for the Retry-After of the host"() {
+        given:
+        def scheduler = new AdaptivePolitenessScheduler(config)
+
+        when:
+        scheduler.onResponse("www.example.com", 429, 0, 800)
+
+        then:
+        scheduler.getNextFetchTime("www.example.com") > System.currentTimeMillis() + 500
+        scheduler.reserve("www.example.com") > 500
+    }
+}
@@ -0,0 +1,111 @@
+package edu.uci.ics.crawler4j.fetcher
+
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration
+import com.github.tomakehurst.wiremock.junit.WireMockRule
+import edu.uci.ics.crawler4j.crawler.CrawlConfig
+import edu.uci.ics.crawler4j.crawler.Page
+import edu.uci.ics.crawler4j.crawler.exceptions.PageBiggerThanMaxSizeException
+import edu.uci.ics.crawler4j.url.WebURL
+import org.junit.Rule
+import spock.lang.Specification
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*
+
+class AsyncPageFetcherTest extends Specification {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(new WireMockConfiguration().dynamicPort())
+
+    def "fetches pages concurrently"() {
+        given: "two pages"
+        stubFor(get(urlPathMatching("/page/.*"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/html")
+                .withBody("<html><body>hello</body></html>")))
+        CrawlConfig config = new CrawlConfig(politenessDelay: 0)
+        AsyncPageFetcher fetcher = new AsyncPageFetcher(config)
+
+        when: "fetching both without waiting"
+        WebURL first = url("/page/1")
+        WebURL second = url("/page/2")
+        def firstFetch = fetcher.fetchPageAsync(first)
+        def secondFetch = fetcher.fetchPageAsync(second)
+        PageFetchResult firstResult = AsyncPageFetcher.join(firstFetch)
+        PageFetchResult secondResult = AsyncPageFetcher.join(secondFetch)
+        Page page = new Page(first)
+        firstResult.fetchContent(page, config.getMaxDownloadSize())
+
+        then: "both are fetched"
+        firstResult.getStatusCode() == 200
+        secondResult.getStatusCode() == 200
+        new String(page.getContentData(), "UTF-8") == "<html><body>hello</body></html>"
+
+        cleanup:
+        fetcher.shutDown()
+    }
+
+    def "fails for pages bigger than the maximum download size"() {
+        given: "a page which is bigger than the maximum download size"
+        stubFor(get(urlEqualTo("/big"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/html")
+                .withBody("x" * 2000)))
+        AsyncPageFetcher fetcher = new AsyncPageFetcher(new CrawlConfig(politenessDelay: 0, maxDownloadSize: 1000))
+
+        when:
+        fetcher.fetchPage(url("/big"))
+
+        then:
+        thrown(PageBiggerThanMaxSizeException)
+
+        cleanup:
+        fetcher.shutDown()
+    }
+
+    def "cancelling a fetch waiting for the politeness delay drops its request"() {
+        given:
+        stubFor(get(urlPathMatching("/page/.*"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/html")
+                .withBody("<html><body>hello</body></html>")))
+        AsyncPageFetcher fetcher = new AsyncPageFetcher(new CrawlConfig(politenessDelay: 500))
+
+        when: "the second fetch of the host is cancelled while it waits"
+        AsyncPageFetcher.join(fetcher.fetchPageAsync(url("/page/1")))
+        fetcher.fetchPageAsync(url("/page/2")).cancel(false)
+        sleep(1000)
+
+        then:
+        verify(exactly(1), getRequestedFor(urlPathMatching("/page/.*")))
+
+        cleanup:
+        fetcher.shutDown()
+    }
+
+    def "fetches still pending fail when the fetcher is shut down"() {
+        given:
+        stubFor(get(urlPathMatching("/page/.*"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/html")
+                .withBody("<html><body>hello</body></html>")))
+        AsyncPageFetcher fetcher = new AsyncPageFetcher(new CrawlConfig(politenessDelay: 10000))
+        AsyncPageFetcher.join(fetcher.fetchPageAsync(url("/page/1")))
+        def delayed = fetcher.fetchPageAsync(url("/page/2"))
+
+        when:
+        fetcher.shutDown()
+
+        then:
+        delayed.isCompletedExceptionally()
+    }
+
+    private WebURL url(String path) {
+        WebURL webURL = new WebURL()
+        webURL.setURL("http://localhost:" + wireMockRule.port() + path)
+        return webURL
+    }
+}
@@ -0,0 +1,60 @@
+package edu.uci.ics.crawler4j.frontier
+
+import com.sleepycat.je.Environment
+import edu.uci.ics.crawler4j.crawler.CrawlConfig
+import edu.uci.ics.crawler4j.url.WebURL
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static edu.uci.ics.crawler4j.frontier.FrontierFixtures.openEnvironment
+import static edu.uci.ics.crawler4j.frontier.FrontierFixtures.url
+
+class DocIDServerTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    Environment env
+
+    def cleanup() {
+        env?.close()
+    }
+
+    @Unroll
+    def "batch resolves and assigns docids (resumable: #resumable, in memory: #inMemory)"() {
+        given: "a docid server which has seen one url"
+        CrawlConfig config = new CrawlConfig(resumableCrawling: resumable, inMemoryDocIdServer: inMemory)
+        env = openEnvironment(temp.getRoot(), resumable)
+        DocIDServer server = inMemory ? new InMemoryDocIDServer(env, config) : new DocIDServer(env, config)
+        server.getNewDocID("http://www.example.com/seen")
+
+        and: "links of a page, one of them twice"
+        List<WebURL> links = ["seen", "a", "b", "a"].collect { url("http://www.example.com/" + it) }
+
+        when: "resolving the links"
+        server.resolveAll(links)
+
+        then: "only the seen url has a docid"
+        links*.getDocid() == [1, -1, -1, -1]
+
+        when: "assigning docids to the unseen links"
+        List<WebURL> assigned = server.assignAll(links.subList(1, 4))
+
+        then: "each url gets a single new docid"
+        assigned*.getURL() == ["http://www.example.com/a", "http://www.example.com/b"]
+        links*.getDocid() == [1, 2, 3, 2]
+        server.getDocId("http://www.example.com/b") == 3
+
+        cleanup:
+        server.close()
+
+        where:
+        resumable | inMemory
+        false     | false
+        true      | false
+        false     | true
+        true      | true
+    }
+}
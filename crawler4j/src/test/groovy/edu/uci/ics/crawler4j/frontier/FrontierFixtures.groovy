@@ -0,0 +1,38 @@
+package edu.uci.ics.crawler4j.frontier
+
+import com.sleepycat.je.Environment
+import com.sleepycat.je.EnvironmentConfig
+import edu.uci.ics.crawler4j.url.WebURL
+
+/**
+ * Environments and urls shared by the frontier specs.
+ */
+class FrontierFixtures {
+
+    /**
+     * Opens an environment configured as the crawl controller does for a crawl which is
+     * resumable or not.
+     */
+    static Environment openEnvironment(File folder, boolean resumable) {
+        EnvironmentConfig envConfig = new EnvironmentConfig()
+        envConfig.setAllowCreate(true)
+        envConfig.setTransactional(resumable)
+        envConfig.setLocking(resumable)
+        return new Environment(folder, envConfig)
+    }
+
+    static WebURL url(String address, int docid = 0, byte priority = 0) {
+        WebURL webURL = new WebURL()
+        webURL.setURL(address)
+        webURL.setDocid(docid)
+        webURL.setPriority(priority)
+        return webURL
+    }
+
+    static WebURL retryUrl(String address, int docid, long notBefore, int attempts) {
+        WebURL webURL = url(address, docid)
+        webURL.setNotBefore(notBefore)
+        webURL.setAttempts((short) attempts)
+        return webURL
+    }
+}
@@ -0,0 +1,115 @@
+package edu.uci.ics.crawler4j.frontier
+
+import com.sleepycat.je.Environment
+import edu.uci.ics.crawler4j.crawler.CrawlConfig
+import edu.uci.ics.crawler4j.fetcher.PolitenessScheduler
+import edu.uci.ics.crawler4j.url.WebURL
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+import static edu.uci.ics.crawler4j.frontier.FrontierFixtures.openEnvironment
+import static edu.uci.ics.crawler4j.frontier.FrontierFixtures.url
+
+class HostQueuesTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    Environment env
+
+    def setup() {
+        env = openEnvironment(temp.getRoot(), false)
+    }
+
+    def cleanup() {
+        env.close()
+    }
+
+    def "hands out at most one url per eligible host"() {
+        given: "a queue with three urls of one host and one url of another"
+        CrawlConfig config = new CrawlConfig(politenessDelay: 1000)
+        HostQueues queues = new HostQueues(env, "HostQueuesTest", false, new PolitenessScheduler(config))
+        queues.put(url("http://www.example.com/1", 1))
+        queues.put(url("http://www.example.com/2", 2))
+        queues.put(url("http://www.example.com/3", 3))
+        queues.put(url("http://www.example.org/1", 4))
+
+        when: "polling for more urls than there are hosts"
+        List<WebURL> first = queues.pollBatch(10, null)
+        List<WebURL> second = queues.pollBatch(10, null)
+
+        then: "the first url of each host is returned and the busy host has to wait"
+        first*.getURL() as Set == ["http://www.example.com/1", "http://www.example.org/1"] as Set
+        second.isEmpty()
+        queues.getLength() == 2
+        queues.getNumberOfHosts() == 1
+        queues.getNextReadyTime() > System.currentTimeMillis()
+
+        cleanup:
+        queues.close()
+    }
+
+    def "urls of a host keep the priority order"() {
+        given: "a queue without politeness delay"
+        CrawlConfig config = new CrawlConfig(politenessDelay: 0)
+        HostQueues queues = new HostQueues(env, "HostQueuesTest", false, new PolitenessScheduler(config))
+        queues.put(url("http://www.example.com/low", 1, (byte) 5))
+        queues.put(url("http://www.example.com/high", 2, (byte) 1))
+
+        expect:
+        queues.pollBatch(1, null)*.getURL() == ["http://www.example.com/high"]
+        queues.pollBatch(1, null)*.getURL() == ["http://www.example.com/low"]
+        queues.pollBatch(1, null).isEmpty()
+        queues.getNextReadyTime() == Long.MAX_VALUE
+
+        cleanup:
+        queues.close()
+    }
+
+    def "a host stays queued when polling it fails"() {
+        given: "a queue with one url and in process pages which fail to receive it"
+        CrawlConfig config = new CrawlConfig(politenessDelay: 0)
+        HostQueues queues = new HostQueues(env, "HostQueuesTest", false, new PolitenessScheduler(config))
+        queues.put(url("http://www.example.com/1", 1))
+        WorkQueues failing = Spy(WorkQueues, constructorArgs: [env, "FailingQueues", false]) {
+            put(_, _, _) >> { throw new IllegalStateException("failed") }
+        }
+
+        when:
+        queues.pollBatch(10, failing)
+
+        then: "the url can still be polled"
+        thrown(IllegalStateException)
+        queues.getNumberOfHosts() == 1
+        queues.pollBatch(10, null)*.getURL() == ["http://www.example.com/1"]
+
+        cleanup:
+        failing.close()
+        queues.close()
+    }
+
+    def "get and delete see the next url of each host"() {
+        given: "a queue with two urls of one host and one url of another"
+        CrawlConfig config = new CrawlConfig(politenessDelay: 0)
+        HostQueues queues = new HostQueues(env, "HostQueuesTest", false, new PolitenessScheduler(config))
+        queues.put(url("http://www.example.com/1", 1))
+        queues.put(url("http://www.example.com/2", 2))
+        queues.put(url("http://www.example.org/1", 3))
+
+        expect:
+        queues.get(10)*.getURL() as Set == ["http://www.example.com/1", "http://www.example.org/1"] as Set
+
+        when: "deleting the next url of each host"
+        queues.delete(10)
+
+        then: "the host left without urls is no longer queued"
+        queues.getLength() == 1
+        queues.getNumberOfHosts() == 1
+        queues.get(10)*.getURL() == ["http://www.example.com/2"]
+        queues.pollBatch(10, null)*.getURL() == ["http://www.example.com/2"]
+
+        cleanup:
+        queues.close()
+    }
+}
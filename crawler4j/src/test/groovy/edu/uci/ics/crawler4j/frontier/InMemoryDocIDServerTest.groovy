@@ -0,0 +1,64 @@
+package edu.uci.ics.crawler4j.frontier
+
+import com.sleepycat.je.Environment
+import edu.uci.ics.crawler4j.crawler.CrawlConfig
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+import static edu.uci.ics.crawler4j.frontier.FrontierFixtures.openEnvironment
+
+class InMemoryDocIDServerTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    Environment env
+
+    def cleanup() {
+        env?.close()
+    }
+
+    def "assigns unique docids and finds them again after growing"() {
+        given: "a non resumable in memory docid server"
+        env = openEnvironment(temp.getRoot(), false)
+        DocIDServer server = new InMemoryDocIDServer(env, new CrawlConfig())
+
+        when: "assigning docids to more urls than the initial table holds"
+        List<Integer> docIds = (1..100000).collect { server.getNewDocID("http://www.example.com/" + it) }
+
+        then: "every url keeps its docid"
+        docIds == (1..100000).toList()
+        server.getDocId("http://www.example.com/1") == 1
+        server.getDocId("http://www.example.com/100000") == 100000
+        server.getNewDocID("http://www.example.com/42") == 42
+        server.getDocId("http://www.example.com/unknown") == -1
+        server.getDocCount() == 100000
+
+        cleanup:
+        server.close()
+    }
+
+    def "docids survive a restart when crawling is resumable"() {
+        given: "a resumable in memory docid server with two urls"
+        CrawlConfig config = new CrawlConfig(resumableCrawling: true)
+        env = openEnvironment(temp.getRoot(), true)
+        DocIDServer server = new InMemoryDocIDServer(env, config)
+        server.getNewDocID("http://www.example.com/a")
+        server.addUrlAndDocId("http://www.example.com/b", 7)
+        server.close()
+        env.close()
+
+        when: "opening it again"
+        env = openEnvironment(temp.getRoot(), true)
+        server = new InMemoryDocIDServer(env, config)
+
+        then: "the docids are loaded and new docids continue after the largest one"
+        server.getDocId("http://www.example.com/a") == 1
+        server.getDocId("http://www.example.com/b") == 7
+        server.getNewDocID("http://www.example.com/c") == 8
+
+        cleanup:
+        server.close()
+    }
+}
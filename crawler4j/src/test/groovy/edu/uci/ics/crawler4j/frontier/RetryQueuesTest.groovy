@@ -0,0 +1,76 @@
+package edu.uci.ics.crawler4j.frontier
+
+import com.sleepycat.je.Environment
+import edu.uci.ics.crawler4j.url.WebURL
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+import static edu.uci.ics.crawler4j.frontier.FrontierFixtures.openEnvironment
+import static edu.uci.ics.crawler4j.frontier.FrontierFixtures.retryUrl
+
+class RetryQueuesTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    Environment env
+
+    def setup() {
+        env = openEnvironment(temp.getRoot(), true)
+    }
+
+    def cleanup() {
+        env.close()
+    }
+
+    def "urls to retry are handed out once their time has come, earliest first"() {
+        given: "a retry queue with urls due at different times"
+        RetryQueues queues = new RetryQueues(env, "RetryQueuesTest", true)
+        queues.put(retryUrl("http://www.example.com/late", 1, 3000, 2))
+        queues.put(retryUrl("http://www.example.com/early", 2, 1000, 1))
+        queues.put(retryUrl("http://www.example.com/middle", 3, 2000, 1))
+
+        expect:
+        queues.getNextRetryTime() == 1000
+        queues.pollDue(999, 10).isEmpty()
+
+        when: "polling the urls due at 2000"
+        List<WebURL> due = queues.pollDue(2000, 10)
+
+        then: "their retry state is kept"
+        due*.getURL() == ["http://www.example.com/early", "http://www.example.com/middle"]
+        due*.getAttempts() == [1, 1]
+        due*.getNotBefore() == [1000, 2000]
+        queues.getLength() == 1
+        queues.getNextRetryTime() == 3000
+
+        when:
+        queues.pollDue(Long.MAX_VALUE, 10)
+
+        then:
+        queues.getNextRetryTime() == Long.MAX_VALUE
+
+        cleanup:
+        queues.close()
+    }
+
+    def "a url to retry is taken out of the pages in process"() {
+        given: "a url in process"
+        WorkQueues inProcess = new WorkQueues(env, "InProcessTest", true)
+        RetryQueues queues = new RetryQueues(env, "RetryQueuesTest", true)
+        WebURL webURL = retryUrl("http://www.example.com/page", 1, 1000, 1)
+        inProcess.put(webURL)
+
+        when:
+        queues.put(webURL, inProcess)
+
+        then:
+        inProcess.getLength() == 0
+        queues.getLength() == 1
+
+        cleanup:
+        queues.close()
+        inProcess.close()
+    }
+}
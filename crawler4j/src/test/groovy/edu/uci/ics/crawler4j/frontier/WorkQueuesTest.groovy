@@ -0,0 +1,46 @@
+package edu.uci.ics.crawler4j.frontier
+
+import com.sleepycat.je.Environment
+import edu.uci.ics.crawler4j.url.WebURL
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+import static edu.uci.ics.crawler4j.frontier.FrontierFixtures.openEnvironment
+import static edu.uci.ics.crawler4j.frontier.FrontierFixtures.url
+
+class WorkQueuesTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    Environment env
+
+    def setup() {
+        env = openEnvironment(temp.getRoot(), true)
+    }
+
+    def cleanup() {
+        env.close()
+    }
+
+    def "poll batch moves the head of the queue to the in process pages"() {
+        given: "a resumable work queue with three urls"
+        WorkQueues queues = new WorkQueues(env, "WorkQueuesTest", true)
+        InProcessPagesDB inProcessPages = new InProcessPagesDB(env)
+        (1..3).each { queues.put(url("http://www.example.com/" + it, it)) }
+
+        when: "polling two urls"
+        List<WebURL> polled = queues.pollBatch(2, inProcessPages)
+
+        then: "they are removed from the queue and are in process"
+        polled*.getURL() == ["http://www.example.com/1", "http://www.example.com/2"]
+        queues.getLength() == 1
+        inProcessPages.getLength() == 2
+        inProcessPages.removeURL(polled[0])
+
+        cleanup:
+        inProcessPages.close()
+        queues.close()
+    }
+}
@@ -2,6 +2,7 @@ package edu.uci.ics.crawler4j.parser
 
 import spock.lang.*
 import java.nio.charset.*
+import java.util.concurrent.*
 import edu.uci.ics.crawler4j.crawler.*
 import edu.uci.ics.crawler4j.url.*
 import org.apache.http.entity.*
@@ -24,4 +25,98 @@ class HtmlParserTest extends Specification {
         noExceptionThrown()
     }
 
+    def "extracts the text only when asked for in lazy parsing"() {
+        def url = new WebURL(url: "http://www.example.com/")
+        def contentType = new ContentType("text/html", Charset.forName("UTF-8"))
+        def entity = new StringEntity('<html><head><title>Title</title></head>' +
+                '<body><p>Some text</p><a href="/page.html">a link</a></body></html>', contentType)
+        def page = new Page(url)
+        page.load entity, 1000000
+
+        when:
+        new Parser(new CrawlConfig(lazyHtmlParsing: true), (TLDList) null).parse page, url.url
+        HtmlParseData parseData = page.parseData
+
+        then: "links and title are extracted right away, the text when it is asked for"
+        parseData.outgoingUrls*.URL == ["http://www.example.com/page.html"]
+        parseData.outgoingUrls[0].anchor == "a link"
+        parseData.title == "Title"
+        parseData.text == "Some text a link"
+    }
+
+    def "fast parser extracts the same links, title and meta tags as tika"() {
+        def url = new WebURL(url: "http://www.example.com/dir/index.html")
+        def contentType = new ContentType("text/html", Charset.forName("UTF-8"))
+        def html = '<html><head><title> A &amp; B </title>' +
+                '<meta name="Description" content="Some page">' +
+                '<link rel="stylesheet" href="/style.css">' +
+                '<script>var link = "<a href=\'script.html\'>";</script></head>' +
+                '<body><!-- <a href="comment.html">comment</a> -->' +
+                '<A HREF="/one.html" rel=nofollow>First\n <b>link</b></A>' +
+                '<a href=two.html?a=1&amp;b=2>Second</a>' +
+                '<img src="pic.png"><iframe src="frame.html"></iframe></body></html>'
+        def tikaPage = new Page(url)
+        tikaPage.load new StringEntity(html, contentType), 1000000
+        def fastPage = new Page(url)
+        fastPage.load new StringEntity(html, contentType), 1000000
+
+        when:
+        HtmlParseData tikaData = new TikaHtmlParser(new CrawlConfig(), null).parse(tikaPage, url.url)
+        HtmlParseData fastData = new FastHtmlParser(new CrawlConfig(), null).parse(fastPage, url.url)
+
+        then:
+        fastData.outgoingUrls*.URL as Set == tikaData.outgoingUrls*.URL as Set
+        fastData.outgoingUrls.collectEntries { [it.URL, it.anchor] } ==
+                tikaData.outgoingUrls.collectEntries { [it.URL, it.anchor] }
+        fastData.outgoingUrls.find { it.URL.endsWith("one.html") }.attributes == [href: "/one.html", rel: "nofollow"]
+        fastData.title == tikaData.title
+        fastData.metaTags == tikaData.metaTags
+        fastData.text == tikaData.text
+    }
+
+    def "parses pages asynchronously in the parser threads"() {
+        def parser = new Parser(new CrawlConfig(numberOfParserThreads: 4), (TLDList) null)
+        def contentType = new ContentType("text/html", Charset.forName("UTF-8"))
+        def pages = (1..20).collect { i ->
+            def page = new Page(new WebURL(url: "http://www.example.com/" + i))
+            page.load new StringEntity("<html><head><title>Page " + i + "</title></head>" +
+                    "<body><a href=\"/link" + i + ".html\">link</a></body></html>", contentType), 1000000
+            page
+        }
+
+        when:
+        def futures = pages.collect { parser.parseAsync(it, it.webURL.URL) }
+        CompletableFuture.allOf(futures as CompletableFuture[]).join()
+
+        then: "every page is parsed by one of the threads"
+        pages.every { page ->
+            def i = page.webURL.URL.tokenize("/").last()
+            page.parseData.title == "Page " + i &&
+                    page.parseData.outgoingUrls*.URL == ["http://www.example.com/link" + i + ".html"]
+        }
+
+        cleanup:
+        parser.shutDown()
+    }
+
+    def "fast parser scans pages larger than its buffer"() {
+        given: "a page with a link after more than 64KB of text, and a small page"
+        def parser = new FastHtmlParser(new CrawlConfig(), null)
+        def contentType = new ContentType("text/html", Charset.forName("UTF-8"))
+        def bigPage = new Page(new WebURL(url: "http://www.example.com/big"))
+        bigPage.load new StringEntity("<html><body><p>" + ("text " * 20000) + "</p>" +
+                "<a href=\"/last.html\">last</a></body></html>", contentType), 1000000
+        def smallPage = new Page(new WebURL(url: "http://www.example.com/small"))
+        smallPage.load new StringEntity("<html><head><title>Small</title></head></html>", contentType), 1000000
+
+        when:
+        HtmlParseData bigData = parser.parse(bigPage, bigPage.webURL.URL)
+        HtmlParseData smallData = parser.parse(smallPage, smallPage.webURL.URL)
+
+        then: "the buffer reused for the small page does not leak the big one"
+        bigData.outgoingUrls*.URL == ["http://www.example.com/last.html"]
+        smallData.title == "Small"
+        smallData.outgoingUrls.isEmpty()
+    }
+
 }
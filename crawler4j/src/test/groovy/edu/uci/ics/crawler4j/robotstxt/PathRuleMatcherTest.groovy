@@ -0,0 +1,45 @@
+package edu.uci.ics.crawler4j.robotstxt
+
+import spock.lang.*
+
+class PathRuleMatcherTest extends Specification {
+
+    @Shared rules = [
+        new PathRule(HostDirectives.DISALLOWED, "/private"),
+        new PathRule(HostDirectives.ALLOWED, "/private/public"),
+        new PathRule(HostDirectives.DISALLOWED, "/*.php\$"),
+        new PathRule(HostDirectives.ALLOWED, "/index.php\$"),
+        new PathRule(HostDirectives.DISALLOWED, "/*/edit"),
+        new PathRule(HostDirectives.DISALLOWED, "/search*"),
+        new PathRule(HostDirectives.ALLOWED, "/search/about"),
+    ]
+
+    @Shared matcher = new PathRuleMatcher(rules)
+
+    def "the most specific matching rule decides"() {
+        expect:
+        matcher.checkAccess(path) == verdict
+
+        where:
+        path                        || verdict
+        "/"                         || HostDirectives.UNDEFINED
+        "/private"                  || HostDirectives.DISALLOWED
+        "/private/file.html"        || HostDirectives.DISALLOWED
+        "/private/public/file.html" || HostDirectives.ALLOWED
+        "/page.php"                 || HostDirectives.DISALLOWED
+        "/page.php?x=1"             || HostDirectives.UNDEFINED
+        "/index.php"                || HostDirectives.ALLOWED
+        "/wiki/edit"                || HostDirectives.DISALLOWED
+        "//edit"                    || HostDirectives.UNDEFINED
+        "/search"                   || HostDirectives.DISALLOWED
+        "/search/about"             || HostDirectives.ALLOWED
+    }
+
+    def "rules match paths like their regular expressions"() {
+        expect:
+        rules.every { it.matches(path) == it.pattern.matcher(path).matches() }
+
+        where:
+        path << ["/", "/private", "/private/public/x", "/a.php", "/a.php/", "/x/y/edit", "/edit", "/search?q=x", ""]
+    }
+}
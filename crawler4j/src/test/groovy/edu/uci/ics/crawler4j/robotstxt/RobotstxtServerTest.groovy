@@ -0,0 +1,190 @@
+package edu.uci.ics.crawler4j.robotstxt
+
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration
+import com.github.tomakehurst.wiremock.junit.WireMockRule
+import com.sleepycat.je.Environment
+import com.sleepycat.je.EnvironmentConfig
+import edu.uci.ics.crawler4j.crawler.CrawlConfig
+import edu.uci.ics.crawler4j.fetcher.PageFetcher
+import edu.uci.ics.crawler4j.url.WebURL
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*
+
+class RobotstxtServerTest extends Specification {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder()
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(new WireMockConfiguration().dynamicPort())
+
+    def "the robots.txt of a host is fetched once by concurrent threads"() {
+        given: "a slow robots.txt"
+        stubFor(get(urlEqualTo("/robots.txt"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/plain")
+                .withFixedDelay(500)
+                .withBody("User-agent: *\nDisallow: /private/\n")))
+        def server = newRobotstxtServer(new RobotstxtConfig())
+
+        when:
+        def executor = Executors.newFixedThreadPool(8)
+        def results = (1..8).collect { i ->
+            executor.submit({
+                server.allows(new WebURL(url: "http://localhost:${wireMockRule.port()}/private/page${i}.html"))
+            } as Callable)
+        }*.get(10, TimeUnit.SECONDS)
+        executor.shutdown()
+
+        then:
+        results.every { !it }
+        verify(exactly(1), getRequestedFor(urlEqualTo("/robots.txt")))
+    }
+
+    def "a host answering with a server error is allowed and checked again after a shorter time"() {
+        given:
+        stubFor(get(urlEqualTo("/robots.txt")).willReturn(aResponse().withStatus(503)))
+        def server = newRobotstxtServer(new RobotstxtConfig(unreachableCacheSeconds: 1))
+        def url = new WebURL(url: "http://localhost:${wireMockRule.port()}/page.html")
+
+        when:
+        def allowed = server.allows(url) && server.allows(url)
+
+        then: "it is only fetched once while it is cached"
+        allowed
+        verify(exactly(1), getRequestedFor(urlEqualTo("/robots.txt")))
+
+        when:
+        sleep(1100)
+        server.allows(url)
+
+        then:
+        verify(exactly(2), getRequestedFor(urlEqualTo("/robots.txt")))
+    }
+
+    def "the robots.txt of a new host is prefetched once in the background"() {
+        given:
+        stubFor(get(urlEqualTo("/robots.txt"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/plain")
+                .withFixedDelay(500)
+                .withBody("User-agent: *\nDisallow: /private/\n")))
+        def server = newRobotstxtServer(new RobotstxtConfig(prefetchThreads: 2))
+        def allowed = new WebURL(url: "http://localhost:${wireMockRule.port()}/page.html")
+        def disallowed = new WebURL(url: "http://localhost:${wireMockRule.port()}/private/page.html")
+
+        expect:
+        server.isPrefetching()
+        !server.hasDirectives(allowed)
+
+        when:
+        def futures = [server.prefetch(allowed), server.prefetch(disallowed)]
+
+        then: "the prefetch does not block"
+        !server.hasDirectives(allowed)
+
+        when:
+        futures*.get(10, TimeUnit.SECONDS)
+
+        then:
+        server.hasDirectives(allowed)
+        server.allows(allowed)
+        !server.allows(disallowed)
+        server.prefetch(allowed).isDone()
+        verify(exactly(1), getRequestedFor(urlEqualTo("/robots.txt")))
+
+        cleanup:
+        server.shutDown()
+    }
+
+    def "shutting down waits for the robots.txt files being prefetched"() {
+        given: "a slow robots.txt being prefetched"
+        stubFor(get(urlEqualTo("/robots.txt"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/plain")
+                .withFixedDelay(500)
+                .withBody("User-agent: *\n")))
+        def server = newRobotstxtServer(new RobotstxtConfig(prefetchThreads: 1))
+        def future = server.prefetch(new WebURL(url: "http://localhost:${wireMockRule.port()}/page.html"))
+        sleep(100)
+
+        when:
+        server.shutDown()
+
+        then: "its completion does not run after the crawl is closed"
+        future.isDone()
+    }
+
+    def "stored robots.txt files are not fetched again after a restart until they expire"() {
+        given:
+        stubFor(get(urlEqualTo("/robots.txt"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/plain")
+                .withBody("User-agent: *\nDisallow: /private/\n")))
+        def folder = temp.newFolder()
+        def url = new WebURL(url: "http://localhost:${wireMockRule.port()}/private/page.html")
+
+        when: "a crawl fetches the robots.txt of a host"
+        def env = newEnvironment(folder)
+        def server = newRobotstxtServer(new RobotstxtConfig())
+        server.openDatabase(env)
+        def allowedBefore = server.allows(url)
+        server.shutDown()
+        env.close()
+
+        and: "a resumed crawl checks an URL of the same host"
+        env = newEnvironment(folder)
+        server = newRobotstxtServer(new RobotstxtConfig())
+        server.openDatabase(env)
+        def allowedAfter = server.allows(url)
+        server.shutDown()
+        env.close()
+
+        then:
+        !allowedBefore
+        !allowedAfter
+        verify(exactly(1), getRequestedFor(urlEqualTo("/robots.txt")))
+    }
+
+    def "the crawl delay of a robots.txt is applied to its host"() {
+        given:
+        stubFor(get(urlEqualTo("/robots.txt"))
+                .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/plain")
+                .withBody("User-agent: *\nCrawl-delay: 1.5\nDisallow: /private/\n")))
+        def server = newRobotstxtServer(new RobotstxtConfig())
+
+        when:
+        server.allows(new WebURL(url: "http://localhost:${wireMockRule.port()}/page.html"))
+
+        then:
+        server.pageFetcher.getPolitenessScheduler().getDelay("localhost") == 1500
+    }
+
+    private static Environment newEnvironment(File folder) {
+        EnvironmentConfig envConfig = new EnvironmentConfig()
+        envConfig.setAllowCreate(true)
+        envConfig.setTransactional(true)
+        envConfig.setLocking(true)
+        return new Environment(folder, envConfig)
+    }
+
+    private RobotstxtServer newRobotstxtServer(RobotstxtConfig robotstxtConfig) {
+        def config = new CrawlConfig(crawlStorageFolder: temp.getRoot().getAbsolutePath(), politenessDelay: 0)
+        def server = new RobotstxtServer(robotstxtConfig, new PageFetcher(config))
+        server.setCrawlConfig(config)
+        return server
+    }
+}
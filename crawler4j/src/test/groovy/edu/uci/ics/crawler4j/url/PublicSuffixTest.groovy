@@ -64,4 +64,20 @@ class PublicSuffixTest extends Specification {
         "http://dummy.edu.np"           || "dummy.edu.np"       | ""
     }
 
+    def "domains are split when asked for, also after the url changed"() {
+        def webUrl = new WebURL()
+        webUrl.tldList = internalTldList
+
+        when:
+        webUrl.setURL "http://www.my.company.co.uk/page.html"
+        webUrl.setURL "http://a.b.example.com/other.html"
+
+        then:
+        webUrl.domain == "example.com"
+        webUrl.subDomain == "a.b"
+        webUrl.host == "a.b.example.com"
+        webUrl.path == "/other.html"
+        internalTldList.getDomainParts("a.b.example.com").is(internalTldList.getDomainParts("a.b.example.com"))
+    }
+
 }
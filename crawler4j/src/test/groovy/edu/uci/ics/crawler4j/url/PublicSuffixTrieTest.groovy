@@ -0,0 +1,46 @@
+package edu.uci.ics.crawler4j.url
+
+import spock.lang.*
+import de.malkusch.whoisServerList.publicSuffixList.PublicSuffixListFactory
+
+class PublicSuffixTrieTest extends Specification {
+
+    static final String LIST_FILE = "src/test/resources/public_suffix_list.dat"
+
+    @Shared trie = new File(LIST_FILE).withInputStream { new PublicSuffixTrie(it) }
+    @Shared publicSuffixList = new File(LIST_FILE).withInputStream { new PublicSuffixListFactory().build(it) }
+
+    def "answers like the public suffix list library for the domains of all the rules"() {
+        def domains = new File(LIST_FILE).readLines()
+                .collect { it.trim().split(/\s/)[0] }
+                .findAll { it && !it.startsWith("//") && it ==~ /[!*.a-z0-9-]+/ }
+                .collectMany { rule ->
+                    def suffix = rule.replaceFirst(/^[!]/, "").replaceFirst(/^\*\./, "")
+                    [suffix, "example." + suffix, "www.example." + suffix]
+                }
+
+        expect:
+        domains.findAll { trie.isPublicSuffix(it) != publicSuffixList.isPublicSuffix(it) } == []
+        domains.findAll { trie.isRegistrable(it) != publicSuffixList.isRegistrable(it) } == []
+    }
+
+    def "identifies public suffixes and registrable domains"() {
+        expect:
+        trie.isPublicSuffix(domain) == publicSuffix
+        trie.isRegistrable(domain) == registrable
+
+        where:
+        domain                  || publicSuffix | registrable
+        "com"                   || true         | false
+        "example.com"           || false        | true
+        "www.example.com"       || false        | false
+        "co.uk"                 || true         | false
+        "company.co.uk"         || false        | true
+        "unlisted"              || true         | false
+        "example.unlisted"      || false        | true
+        "example.ck"            || true         | false
+        "www.ck"                || false        | true
+        "dummy.edu.np"          || false        | true
+    }
+
+}
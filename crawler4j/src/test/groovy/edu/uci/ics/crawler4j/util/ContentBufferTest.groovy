@@ -0,0 +1,63 @@
+package edu.uci.ics.crawler4j.util
+
+import java.nio.charset.StandardCharsets
+
+import spock.lang.Specification
+
+class ContentBufferTest extends Specification {
+
+    def "reads content spanning several chunks"() {
+        given: "content longer than two chunks with multi byte characters"
+        String text = "héllo wörld " * 2000
+        byte[] data = text.getBytes(StandardCharsets.UTF_8)
+        ContentBuffer buffer = new ContentBuffer()
+
+        when:
+        boolean truncated = buffer.readFrom(new ByteArrayInputStream(data), 0)
+
+        then: "the content can be read back in all forms"
+        !truncated
+        buffer.length() == data.length
+        buffer.toByteArray() == data
+        buffer.newInputStream().bytes == data
+        buffer.toString(StandardCharsets.UTF_8) == text
+    }
+
+    def "stops at the maximum size"() {
+        given:
+        byte[] data = new byte[size]
+        ContentBuffer buffer = new ContentBuffer()
+
+        expect:
+        buffer.readFrom(new ByteArrayInputStream(data), 10000) == truncated
+        buffer.length() == Math.min(size, 10000)
+
+        where:
+        size  | truncated
+        9999  | false
+        10000 | false
+        10001 | true
+    }
+
+    def "reuses the chunks of released buffers"() {
+        given: "a pool and a buffer loaded from it"
+        ChunkPool pool = new ChunkPool(ContentBuffer.CHUNK_SIZE * 4)
+        ContentBuffer first = new ContentBuffer(pool)
+        first.readFrom(new ByteArrayInputStream(new byte[ContentBuffer.CHUNK_SIZE * 3]), 0)
+
+        when: "releasing it"
+        first.release()
+
+        then: "its chunks are in the pool"
+        pool.size() == 3
+        first.length() == 0
+
+        when: "loading another buffer"
+        ContentBuffer second = new ContentBuffer(pool)
+        second.readFrom(new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)), 0)
+
+        then: "it takes a chunk from the pool"
+        pool.size() == 2
+        second.toString(StandardCharsets.UTF_8) == "hello"
+    }
+}
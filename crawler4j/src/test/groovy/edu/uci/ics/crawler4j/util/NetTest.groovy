@@ -39,6 +39,11 @@ class NetTest extends Specification {
         then: expectMatch extracted, "http://localhost/page/1"
     }
     
+    def "single level domains without scheme" () {
+        when: def extracted = allowSingleLevelDomain.extractUrls "see localhost:8080/page and intranet/docs today"
+        then: expectMatch extracted, "http://localhost:8080/page", "http://intranet/docs"
+    }
+    
     def "no url found" () {
         when: def extracted = standard.extractUrls "http://localhost"
         then: expectMatch extracted     // no expected URL
@@ -49,6 +54,17 @@ class NetTest extends Specification {
         then: expectMatch extracted, "http://host.com/toodles", "http://例子.测试/"
     }
     
+    def "urls in longer text" () {
+        when: def extracted = standard.extractUrls "See the docs. They are at\thttps://example.com/docs and\n" +
+                "www.example.org, or ask on example.net/forum! Nothing else: here, 3 . 4 or end."
+        then: expectMatch extracted, "https://example.com/docs", "http://www.example.org/", "http://example.net/forum"
+    }
+
+    def "text without urls" () {
+        when: def extracted = standard.extractUrls "Just some words. Nothing: to see here"
+        then: expectMatch extracted     // no expected URL
+    }
+
     void expectMatch(def extractedUrls, String... expectedUrls) {
         def extracted = extractedUrls.collect { it.URL } as Set
         def expected = expectedUrls as Set
@@ -0,0 +1,34 @@
+package edu.uci.ics.crawler4j.util
+
+import spock.lang.Specification
+
+class ScalableBloomFilterTest extends Specification {
+
+    def "grows beyond its initial capacity without false negatives"() {
+        given: "a filter sized for 100 elements"
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01)
+
+        when: "putting 10000 elements"
+        (1..10000).each { filter.put("http://www.example.com/" + it) }
+
+        then: "all of them are found and few unknown elements are reported"
+        (1..10000).every { filter.mightContain("http://www.example.com/" + it) }
+        (1..10000).count { filter.mightContain("http://www.example.org/" + it) } < 200
+        filter.getCount() == 10000
+    }
+
+    def "can be written and read back"() {
+        given: "a filter with a few elements"
+        ScalableBloomFilter filter = new ScalableBloomFilter(2, 0.01)
+        ["a", "b", "c", "d", "e"].each { filter.put(it) }
+
+        when: "writing and reading it"
+        ByteArrayOutputStream out = new ByteArrayOutputStream()
+        filter.writeTo(out)
+        ScalableBloomFilter read = ScalableBloomFilter.readFrom(new ByteArrayInputStream(out.toByteArray()))
+
+        then: "the elements are still there"
+        ["a", "b", "c", "d", "e"].every { read.mightContain(it) }
+        read.getCount() == 5
+    }
+}
@@ -0,0 +1,28 @@
+package edu.uci.ics.crawler4j.util
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import spock.lang.Specification
+
+class VirtualThreadsTest extends Specification {
+
+    def "creates a named thread which is not started yet"() {
+        given: "a task"
+        CountDownLatch latch = new CountDownLatch(1)
+
+        when: "creating a thread for it"
+        Thread thread = VirtualThreads.newThread({ latch.countDown() } as Runnable, "Crawler 1")
+
+        then: "the thread has the name and only runs the task once started"
+        thread.name == "Crawler 1"
+        thread.state == Thread.State.NEW
+        latch.count == 1
+
+        when: "starting it"
+        thread.start()
+
+        then: "the task is run"
+        latch.await(5, TimeUnit.SECONDS)
+    }
+}
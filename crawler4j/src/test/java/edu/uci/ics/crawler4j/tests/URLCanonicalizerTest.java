@@ -1,6 +1,7 @@
 package edu.uci.ics.crawler4j.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
@@ -96,4 +97,25 @@ public class URLCanonicalizerTest {
                 URLCanonicalizer.getCanonicalURL("http://www.example.com/search/?query=hello　world"));
         //
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAlreadyCanonicalUrls() throws UnsupportedEncodingException {
+        String url = "https://www.example.com/a/b-c/d.html";
+        assertSame(url, URLCanonicalizer.getCanonicalURL(url));
+
+        assertEquals("https://www.example.com/a/b.html",
+                     URLCanonicalizer.getCanonicalURL("https://www.example.com/a/b.html#top"));
+
+        assertEquals("http://www.example.com/",
+                     URLCanonicalizer.getCanonicalURL("http://www.example.com#top"));
+
+        assertEquals("http://foo.bar/other/file.html",
+                     URLCanonicalizer.getCanonicalURL("/other/file.html", "http://foo.bar/mydir/myfile"));
+
+        assertEquals("http://foo.bar/other/file.html",
+                     URLCanonicalizer.getCanonicalURL("/mydir/../other/./file.html", "http://foo.bar/mydir/myfile"));
+
+        assertEquals("http://foo.bar/other/file.html",
+                     URLCanonicalizer.getCanonicalURL("/other/file.html", "http://FOO.bar:80/mydir/myfile"));
+    }
+}
@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
-import java.util.Date;
 
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpHead;
@@ -32,13 +31,7 @@ public class PageFetcherHtmlOnly extends PageFetcher {
         try {
             head = new HttpHead(toFetchURL);
 
-            synchronized (mutex) {
-                long now = new Date().getTime();
-                if (now - this.lastFetchTime < getConfig().getPolitenessDelay()) {
-                    Thread.sleep(getConfig().getPolitenessDelay() - (now - this.lastFetchTime));
-                }
-                this.lastFetchTime = new Date().getTime();
-            }
+            politenessScheduler.acquire(webUrl);
 
             HttpResponse response = httpClient.execute(head);
             fetchResult.setEntity(response.getEntity());